@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.jrummy.apps.dialogs.BaseListItem;
+
+/**
+ * Creates the same list items for every run, so results can be compared between runs.
+ */
+final class BenchmarkItems {
+
+	private static final String[] WORDS = {
+		"alpha", "Bravo", "charlie", "Delta", "echo", "Foxtrot", "golf", "Hotel", "india", "Juliet",
+		"kilo", "Lima", "mike", "November", "oscar", "Papa", "quebec", "Romeo", "sierra", "Tango"
+	};
+
+	private BenchmarkItems() {
+	}
+
+	/**
+	 * @param size The number of items
+	 * @return Items with labels like file names, sub-labels, and every third item checked.
+	 */
+	static List<BaseListItem> create(int size) {
+		Random random = new Random(size);
+		List<BaseListItem> items = new ArrayList<BaseListItem>(size);
+		for (int i = 0; i < size; i++) {
+			String label = WORDS[random.nextInt(WORDS.length)] + "_" + WORDS[random.nextInt(WORDS.length)]
+					+ "_" + random.nextInt(100000) + ".txt";
+			String subLabel = random.nextInt(1000) + " KB";
+			items.add(new BaseListItem(label, subLabel, i % 3 == 0));
+		}
+		return items;
+	}
+}
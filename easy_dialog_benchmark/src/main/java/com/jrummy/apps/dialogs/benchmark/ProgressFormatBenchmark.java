@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jrummy.apps.dialogs.ProgressFormat;
+
+/**
+ * The count and percent text set on every progress update.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProgressFormatBenchmark {
+
+	private static final int MAX = 123456;
+
+	private int mProgress;
+
+	private int nextProgress() {
+		mProgress = mProgress < MAX ? mProgress + 1 : 0;
+		return mProgress;
+	}
+
+	@Benchmark
+	public String formatCount() {
+		return ProgressFormat.formatCount(nextProgress(), MAX);
+	}
+
+	@Benchmark
+	public String formatPercent() {
+		return ProgressFormat.formatPercent(nextProgress(), MAX);
+	}
+}
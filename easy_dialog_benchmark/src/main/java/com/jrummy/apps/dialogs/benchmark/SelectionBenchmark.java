@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jrummy.apps.dialogs.BaseListItem;
+import com.jrummy.apps.dialogs.ListItems;
+
+/**
+ * The selection scans behind <code>EasyDialog.getCheckedItems()</code> and <code>EasyDialog.checkAll(boolean)</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectionBenchmark {
+
+	@Param({"1000", "10000", "100000"})
+	public int size;
+
+	private List<BaseListItem> mItems;
+	private boolean mCheck;
+
+	@Setup
+	public void setUp() {
+		mItems = BenchmarkItems.create(size);
+	}
+
+	@Benchmark
+	public List<BaseListItem> getCheckedItems() {
+		return ListItems.getCheckedItems(mItems);
+	}
+
+	@Benchmark
+	public List<BaseListItem> checkAll() {
+		mCheck = !mCheck;
+		ListItems.checkAll(mItems, mCheck);
+		return mItems;
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The parts of a list item that don't depend on Android: its text, check state, data and id.
+ * <br><br>
+ * <code>EasyDialog.ListItem</code> adds the icon. Sorting, selecting and filtering in {@link ListItems}
+ * only use these fields, so they can run and be benchmarked on a plain JVM.
+ */
+public class BaseListItem {
+
+	private static final AtomicLong sNextId = new AtomicLong();
+
+	/** The label for the list item */
+	public String label;
+
+	/** The text that gets displayed right under the label. 
+	 * If null then the view's visibility will be set to <code>View.GONE</code> */
+	public String subLabel;
+
+	/** Whether the CheckBox or RadioButton should be checked. 
+	 * If null the CheckBox and RadioButton will not be displayed. */
+	public Boolean checked;
+
+	/** Can be used to store some data */
+	public Object data;
+
+	/** 
+	 * The stable id of the item. Unique by default. Set to a value that identifies the 
+	 * item across list updates (see <code>EasyDialog.updateListItems(List)</code>). 
+	 */
+	public long id = sNextId.getAndIncrement();
+
+	/** The color of the label */
+	public int labelColor = -1;
+
+	/** The color of the sub-label */
+	public int subLabelColor = -1;
+
+	public BaseListItem() {
+	}
+
+	public BaseListItem(String label, String subLabel, Boolean checked) {
+		this.label = label;
+		this.subLabel = subLabel;
+		this.checked = checked;
+	}
+}
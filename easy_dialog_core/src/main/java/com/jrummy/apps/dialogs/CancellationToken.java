@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * A flag shared between the UI thread and a background task so the task can be stopped cooperatively.
+ * <br><br>
+ * The dialog cancels the token when the negative button is pressed or the dialog is canceled/dismissed.
+ * Long running work should check {@link #isCancelled()} (or call {@link #throwIfCancelled()}) between units of work.
+ */
+public class CancellationToken {
+
+	private volatile boolean mCancelled;
+
+	/**
+	 * Requests cancellation. Safe to call from any thread and more than once.
+	 */
+	public void cancel() {
+		mCancelled = true;
+	}
+
+	/**
+	 * @return <code>true</code> if {@link #cancel()} has been called.
+	 */
+	public boolean isCancelled() {
+		return mCancelled;
+	}
+
+	/**
+	 * Throws a {@link CancellationException} if the token has been canceled.
+	 * The task runner treats the exception as a cancellation, not an error.
+	 */
+	public void throwIfCancelled() {
+		if (mCancelled) {
+			throw new CancellationException();
+		}
+	}
+}
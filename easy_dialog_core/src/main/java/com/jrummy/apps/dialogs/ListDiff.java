@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes a minimal edit script between two lists using Myers' O(ND) difference algorithm.
+ * <br><br>
+ * The script is ordered from the end of the list to the start, so applying it in order with
+ * {@link #apply(List, List, List)} never shifts the position of an edit that is still to come.
+ * Diffing is safe to run on any thread.
+ */
+public final class ListDiff {
+
+	/**
+	 * Scripts longer than this are replaced by removing and inserting the changed range.
+	 * Backtracking keeps one row of the edit graph per edit, so memory grows with the square of the distance.
+	 */
+	public static final int MAX_EDIT_DISTANCE = 512;
+
+	/**
+	 * Decides how items in the old and new lists relate to each other.
+	 */
+	public interface Callback<T> {
+
+		/**
+		 * @return <code>true</code> if both items represent the same entry, usually by comparing a stable id.
+		 */
+		boolean areItemsTheSame(T oldItem, T newItem);
+
+		/**
+		 * Only called if {@link #areItemsTheSame(Object, Object)} returned <code>true</code>.
+		 * @return <code>true</code> if the item's displayed data did not change.
+		 */
+		boolean areContentsTheSame(T oldItem, T newItem);
+	}
+
+	/**
+	 * A single step of an edit script.
+	 */
+	public static final class Edit {
+
+		/** Insert the item at {@link #newPosition} of the new list at {@link #oldPosition}. */
+		public static final int INSERT = 1;
+		/** Remove the item at {@link #oldPosition}. */
+		public static final int REMOVE = 2;
+		/** Replace the item at {@link #oldPosition} with the item at {@link #newPosition} of the new list. */
+		public static final int CHANGE = 3;
+
+		public final int type;
+		public final int oldPosition;
+		public final int newPosition;
+
+		Edit(int type, int oldPosition, int newPosition) {
+			this.type = type;
+			this.oldPosition = oldPosition;
+			this.newPosition = newPosition;
+		}
+
+		@Override
+		public String toString() {
+			String name = type == INSERT ? "INSERT" : type == REMOVE ? "REMOVE" : "CHANGE";
+			return name + "(" + oldPosition + ", " + newPosition + ")";
+		}
+	}
+
+	private ListDiff() {
+	}
+
+	/**
+	 * Computes the edit script that turns oldList into newList.
+	 *
+	 * @param oldList  The current items
+	 * @param newList  The updated items
+	 * @param callback Decides item identity and equality
+	 * @return The edits, ordered from the end of the list to the start.
+	 */
+	public static <T> List<Edit> diff(List<T> oldList, List<T> newList, Callback<? super T> callback) {
+		List<Edit> edits = new ArrayList<Edit>();
+		int oldSize = oldList.size();
+		int newSize = newList.size();
+
+		// Trim the common prefix and suffix, which is most of the list for a typical refresh.
+		int start = 0;
+		while (start < oldSize && start < newSize
+				&& callback.areItemsTheSame(oldList.get(start), newList.get(start))) {
+			start++;
+		}
+		int oldEnd = oldSize;
+		int newEnd = newSize;
+		while (oldEnd > start && newEnd > start
+				&& callback.areItemsTheSame(oldList.get(oldEnd - 1), newList.get(newEnd - 1))) {
+			oldEnd--;
+			newEnd--;
+		}
+
+		for (int i = oldSize - 1, j = newSize - 1; i >= oldEnd; i--, j--) {
+			addChangeIfNeeded(edits, oldList, newList, i, j, callback);
+		}
+
+		if (!diffRange(edits, oldList, newList, start, oldEnd, start, newEnd, callback)) {
+			for (int j = newEnd - 1; j >= start; j--) {
+				edits.add(new Edit(Edit.INSERT, oldEnd, j));
+			}
+			for (int i = oldEnd - 1; i >= start; i--) {
+				edits.add(new Edit(Edit.REMOVE, i, start));
+			}
+		}
+
+		for (int i = start - 1; i >= 0; i--) {
+			addChangeIfNeeded(edits, oldList, newList, i, i, callback);
+		}
+
+		return edits;
+	}
+
+	/**
+	 * Applies an edit script from {@link #diff(List, List, Callback)} to a list.
+	 *
+	 * @param target  The list to modify. Must contain the same items as the old list passed to diff.
+	 * @param newList The new list passed to diff.
+	 * @param edits   The edit script.
+	 */
+	public static <T> void apply(List<T> target, List<T> newList, List<Edit> edits) {
+		for (Edit edit : edits) {
+			switch (edit.type) {
+			case Edit.INSERT:
+				target.add(edit.oldPosition, newList.get(edit.newPosition));
+				break;
+			case Edit.REMOVE:
+				target.remove(edit.oldPosition);
+				break;
+			case Edit.CHANGE:
+				target.set(edit.oldPosition, newList.get(edit.newPosition));
+				break;
+			}
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the edit script contains inserts or removes.
+	 */
+	public static boolean isStructural(List<Edit> edits) {
+		for (Edit edit : edits) {
+			if (edit.type != Edit.CHANGE) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static <T> void addChangeIfNeeded(List<Edit> edits, List<T> oldList, List<T> newList,
+			int oldPosition, int newPosition, Callback<? super T> callback) {
+		if (!callback.areContentsTheSame(oldList.get(oldPosition), newList.get(newPosition))) {
+			edits.add(new Edit(Edit.CHANGE, oldPosition, newPosition));
+		}
+	}
+
+	/**
+	 * Runs the greedy Myers search on old[oldStart, oldEnd) and new[newStart, newEnd) and
+	 * backtracks through the saved rows to emit the edits.
+	 *
+	 * @return <code>false</code> if the edit distance is larger than {@link #MAX_EDIT_DISTANCE}
+	 */
+	private static <T> boolean diffRange(List<Edit> edits, List<T> oldList, List<T> newList,
+			int oldStart, int oldEnd, int newStart, int newEnd, Callback<? super T> callback) {
+		int n = oldEnd - oldStart;
+		int m = newEnd - newStart;
+		if (n == 0 && m == 0) {
+			return true;
+		}
+
+		int maxD = Math.min(n + m, MAX_EDIT_DISTANCE);
+		int offset = maxD + 1;
+		int[] v = new int[2 * maxD + 3];
+		List<int[]> trace = new ArrayList<int[]>();
+
+		int distance = -1;
+		search:
+		for (int d = 0; d <= maxD; d++) {
+			for (int k = -d; k <= d; k += 2) {
+				int x;
+				if (d == 0) {
+					x = 0;
+				} else if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+					x = v[offset + k + 1];
+				} else {
+					x = v[offset + k - 1] + 1;
+				}
+				int y = x - k;
+				while (x < n && y < m && callback.areItemsTheSame(
+						oldList.get(oldStart + x), newList.get(newStart + y))) {
+					x++;
+					y++;
+				}
+				v[offset + k] = x;
+				if (x >= n && y >= m) {
+					distance = d;
+					saveRow(trace, v, offset, d);
+					break search;
+				}
+			}
+			saveRow(trace, v, offset, d);
+		}
+
+		if (distance == -1) {
+			return false;
+		}
+
+		int x = n;
+		int y = m;
+		for (int d = distance; d >= 0; d--) {
+			int k = x - y;
+			int prevX = 0;
+			int prevY = 0;
+			int midX = 0;
+			int midY = 0;
+			boolean down = false;
+			if (d > 0) {
+				int[] prev = trace.get(d - 1);
+				int prevK;
+				down = k == -d || (k != d && prev[k - 1 + d - 1] < prev[k + 1 + d - 1]);
+				prevK = down ? k + 1 : k - 1;
+				prevX = prev[prevK + d - 1];
+				prevY = prevX - prevK;
+				midX = down ? prevX : prevX + 1;
+				midY = down ? prevY + 1 : prevY;
+			}
+
+			// Walk the snake back to the end of the edit
+			while (x > midX && y > midY) {
+				addChangeIfNeeded(edits, oldList, newList, oldStart + x - 1, newStart + y - 1, callback);
+				x--;
+				y--;
+			}
+
+			if (d > 0) {
+				if (down) {
+					edits.add(new Edit(Edit.INSERT, oldStart + x, newStart + y - 1));
+				} else {
+					edits.add(new Edit(Edit.REMOVE, oldStart + x - 1, newStart + y));
+				}
+				x = prevX;
+				y = prevY;
+			}
+		}
+
+		return true;
+	}
+
+	private static void saveRow(List<int[]> trace, int[] v, int offset, int d) {
+		int[] row = new int[2 * d + 1];
+		System.arraycopy(v, offset - d, row, 0, row.length);
+		trace.add(row);
+	}
+}
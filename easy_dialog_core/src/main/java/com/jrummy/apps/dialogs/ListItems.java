@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sorting, selection and filtering of list items.
+ * The dialog's list selection follows {@link #checkOnly(List, int)} and {@link #toggle(BaseListItem)}.
+ */
+public final class ListItems {
+
+	/**
+	 * Sorts list items by their labels in alphabetical order, ignoring case.
+	 */
+	public static final Comparator<BaseListItem> LABEL_COMPARATOR = new Comparator<BaseListItem>() {
+
+		@Override
+		public int compare(BaseListItem item1, BaseListItem item2) {
+			return item1.label.compareToIgnoreCase(item2.label);
+		}
+
+	};
+
+	private ListItems() {
+	}
+
+	/**
+	 * @param items The items to check
+	 * @return A new list with the items that are checked, in order.
+	 */
+	public static <T extends BaseListItem> List<T> getCheckedItems(List<T> items) {
+		List<T> checked = new ArrayList<T>();
+		for (int i = 0, size = items.size(); i < size; i++) {
+			T item = items.get(i);
+			if (item.checked != null && item.checked) {
+				checked.add(item);
+			}
+		}
+		return checked;
+	}
+
+	/**
+	 * @param items The items to check
+	 * @return The positions of the items that are checked, in order.
+	 */
+	public static int[] getCheckedPositions(List<? extends BaseListItem> items) {
+		int size = items.size();
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			Boolean checked = items.get(i).checked;
+			if (checked != null && checked) {
+				count++;
+			}
+		}
+		int[] positions = new int[count];
+		for (int i = 0, j = 0; j < count; i++) {
+			Boolean checked = items.get(i).checked;
+			if (checked != null && checked) {
+				positions[j++] = i;
+			}
+		}
+		return positions;
+	}
+
+	/**
+	 * Checks or unchecks all the items.
+	 *
+	 * @param items The items
+	 * @param check <code>true</code> to check the items
+	 */
+	public static void checkAll(List<? extends BaseListItem> items, boolean check) {
+		Boolean checked = Boolean.valueOf(check);
+		for (int i = 0, size = items.size(); i < size; i++) {
+			items.get(i).checked = checked;
+		}
+	}
+
+	/**
+	 * Checks the item at the position and unchecks all the others, like the radio buttons of a
+	 * {@link ListStyle#SINGLE_CHOICE} list.
+	 *
+	 * @param items    The items
+	 * @param position The position of the item to check
+	 */
+	public static void checkOnly(List<? extends BaseListItem> items, int position) {
+		for (int i = 0, size = items.size(); i < size; i++) {
+			items.get(i).checked = i == position ? Boolean.TRUE : Boolean.FALSE;
+		}
+	}
+
+	/**
+	 * Toggles the item's CheckBox if it has one.
+	 *
+	 * @param item The item
+	 * @return <code>true</code> if the item has a CheckBox and was toggled.
+	 */
+	public static boolean toggle(BaseListItem item) {
+		if (item.checked == null) {
+			return false;
+		}
+		item.checked = !item.checked;
+		return true;
+	}
+
+	/**
+	 * Packs the check state of the items into a bitset. Bit <code>i % 64</code> of word <code>i / 64</code>
+	 * is set if item <code>i</code> is checked. 500 items take 8 longs.
+	 *
+	 * @param items The items
+	 * @return The bitset, with one bit per item.
+	 */
+	public static long[] getCheckedBits(List<? extends BaseListItem> items) {
+		int size = items.size();
+		long[] bits = new long[(size + 63) >>> 6];
+		for (int i = 0; i < size; i++) {
+			Boolean checked = items.get(i).checked;
+			if (checked != null && checked) {
+				bits[i >>> 6] |= 1L << i;
+			}
+		}
+		return bits;
+	}
+
+	/**
+	 * Checks the items whose bit is set in the bitset and unchecks the others. Items without a
+	 * CheckBox and items past the end of the bitset are left alone.
+	 *
+	 * @param items The items
+	 * @param bits  A bitset from {@link #getCheckedBits(List)}
+	 */
+	public static void setCheckedBits(List<? extends BaseListItem> items, long[] bits) {
+		int size = Math.min(items.size(), bits.length << 6);
+		for (int i = 0; i < size; i++) {
+			BaseListItem item = items.get(i);
+			if (item.checked != null) {
+				item.checked = (bits[i >>> 6] & (1L << i)) != 0 ? Boolean.TRUE : Boolean.FALSE;
+			}
+		}
+	}
+
+	/**
+	 * Finds the items whose label or sub-label contains the query, ignoring case.
+	 *
+	 * @param items The items to filter
+	 * @param query The text to look for. An empty query matches every item.
+	 * @return A new list with the matching items, in order.
+	 */
+	public static <T extends BaseListItem> List<T> filter(List<T> items, CharSequence query) {
+		String text = query.toString();
+		List<T> matches = new ArrayList<T>();
+		for (int i = 0, size = items.size(); i < size; i++) {
+			T item = items.get(i);
+			if (containsIgnoreCase(item.label, text) || containsIgnoreCase(item.subLabel, text)) {
+				matches.add(item);
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * @return <code>true</code> if the text contains the query, ignoring case. Doesn't allocate.
+	 */
+	static boolean containsIgnoreCase(String text, String query) {
+		if (text == null) {
+			return false;
+		}
+		int length = query.length();
+		if (length == 0) {
+			return true;
+		}
+		for (int i = 0, last = text.length() - length; i <= last; i++) {
+			if (text.regionMatches(true, i, query, 0, length)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+/**
+ * How the items of a list dialog are shown and checked.
+ * <br><br>
+ * <code>EasyDialog.LIST_STYLE_</code> constants have the same values.
+ */
+public final class ListStyle {
+
+	/** A ListView with plain items, or items with a CheckBox if their <code>checked</code> is set */
+	public static final int LISTVIEW = 0x01;
+	/** A GridView of icons with labels */
+	public static final int GRIDVIEW = 0x02;
+	/** A ListView where checking an item unchecks the others */
+	public static final int SINGLE_CHOICE = 0x03;
+	/** A ListView where any number of items can be checked */
+	public static final int MULTI_CHOICE = 0x04;
+
+	private ListStyle() {
+	}
+}
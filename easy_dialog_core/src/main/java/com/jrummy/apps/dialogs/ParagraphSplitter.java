@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+
+/**
+ * Splits long text into paragraphs while it is read, without holding the whole text in memory.
+ * <br><br>
+ * Consecutive non-blank lines are joined into a paragraph until the paragraph reaches
+ * {@link #PARAGRAPH_LENGTH} characters; it then ends at the next line break. Every blank line is
+ * its own empty paragraph, so the text keeps its vertical spacing. A single line longer than
+ * {@link #MAX_PARAGRAPH_LENGTH} is split without waiting for a line break.
+ */
+public final class ParagraphSplitter {
+
+	/** The length after which a paragraph ends at the next line break */
+	public static final int PARAGRAPH_LENGTH = 2048;
+	/** The length after which a paragraph ends even inside a line */
+	public static final int MAX_PARAGRAPH_LENGTH = 8192;
+
+	/**
+	 * Receives the paragraphs of a {@link Reader}.
+	 */
+	public interface TextCallback {
+
+		/**
+		 * @param text The paragraph, without line terminators at the end.
+		 * @return <code>false</code> to stop reading.
+		 */
+		boolean onParagraph(String text);
+	}
+
+	/**
+	 * Receives the byte ranges of the paragraphs of an {@link InputStream}.
+	 */
+	public interface RangeCallback {
+
+		/**
+		 * @param start  The offset of the paragraph's first byte.
+		 * @param length The length of the paragraph in bytes, without the line break at the end.
+		 * @return <code>false</code> to stop reading.
+		 */
+		boolean onParagraph(long start, int length);
+	}
+
+	private ParagraphSplitter() {
+	}
+
+	/**
+	 * Reads the text and passes each paragraph to the callback. The reader is not closed.
+	 *
+	 * @param reader   The text
+	 * @param callback The callback
+	 * @throws IOException if reading fails
+	 */
+	public static void split(Reader reader, TextCallback callback) throws IOException {
+		StringBuilder paragraph = new StringBuilder();
+		int lineLength = 0;
+		char[] buffer = new char[8192];
+		int read;
+		while ((read = reader.read(buffer)) != -1) {
+			for (int i = 0; i < read; i++) {
+				char c = buffer[i];
+				if (c == '\r') {
+					continue;
+				}
+				if (c != '\n') {
+					if (paragraph.length() >= MAX_PARAGRAPH_LENGTH && !Character.isLowSurrogate(c)) {
+						if (!flush(paragraph, callback)) {
+							return;
+						}
+					}
+					paragraph.append(c);
+					lineLength++;
+				} else if (lineLength > 0) {
+					lineLength = 0;
+					if (paragraph.length() >= PARAGRAPH_LENGTH) {
+						if (!flush(paragraph, callback)) {
+							return;
+						}
+					} else {
+						paragraph.append('\n');
+					}
+				} else {
+					// Blank line
+					if (paragraph.length() > 0 && !flush(paragraph, callback)) {
+						return;
+					}
+					if (!callback.onParagraph("")) {
+						return;
+					}
+				}
+			}
+		}
+		if (paragraph.length() > 0) {
+			flush(paragraph, callback);
+		}
+	}
+
+	private static boolean flush(StringBuilder paragraph, TextCallback callback) {
+		int length = paragraph.length();
+		if (length > 0 && paragraph.charAt(length - 1) == '\n') {
+			length--;
+		}
+		String text = paragraph.substring(0, length);
+		paragraph.setLength(0);
+		return callback.onParagraph(text);
+	}
+
+	/**
+	 * Reads UTF-8 text and passes the byte range of each paragraph to the callback, so paragraphs
+	 * can be read again later from a file. The stream is not closed.
+	 * <br><br>
+	 * Ranges may contain carriage returns and end with line breaks. Decode them with {@link #decode(byte[], int, int)}.
+	 *
+	 * @param in       The UTF-8 text
+	 * @param callback The callback
+	 * @throws IOException if reading fails
+	 */
+	public static void index(InputStream in, RangeCallback callback) throws IOException {
+		long offset = 0;
+		long start = 0;
+		int length = 0;
+		int lineLength = 0;
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			for (int i = 0; i < read; i++, offset++) {
+				byte b = buffer[i];
+				if (b == '\r') {
+					if (length == 0) {
+						start = offset + 1;
+					} else {
+						length++;
+					}
+				} else if (b != '\n') {
+					// Never split inside a UTF-8 sequence
+					if (length >= MAX_PARAGRAPH_LENGTH && (b & 0xC0) != 0x80) {
+						if (!callback.onParagraph(start, length)) {
+							return;
+						}
+						length = 0;
+					}
+					if (length == 0) {
+						start = offset;
+					}
+					length++;
+					lineLength++;
+				} else if (lineLength > 0) {
+					lineLength = 0;
+					if (length >= PARAGRAPH_LENGTH) {
+						if (!callback.onParagraph(start, length)) {
+							return;
+						}
+						length = 0;
+						start = offset + 1;
+					} else {
+						length++;
+					}
+				} else {
+					// Blank line
+					if (length > 0 && !callback.onParagraph(start, length)) {
+						return;
+					}
+					if (!callback.onParagraph(offset, 0)) {
+						return;
+					}
+					length = 0;
+					start = offset + 1;
+				}
+			}
+		}
+		if (length > 0) {
+			callback.onParagraph(start, length);
+		}
+	}
+
+	/**
+	 * Decodes a range passed to {@link RangeCallback#onParagraph(long, int)}.
+	 *
+	 * @param bytes  The bytes that were read for the range
+	 * @param offset The offset of the range in bytes
+	 * @param length The length of the range
+	 * @return The paragraph, without carriage returns or line breaks at the end.
+	 */
+	public static String decode(byte[] bytes, int offset, int length) {
+		String text;
+		try {
+			text = new String(bytes, offset, length, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+		if (text.indexOf('\r') != -1) {
+			text = text.replace("\r", "");
+		}
+		int end = text.length();
+		while (end > 0 && text.charAt(end - 1) == '\n') {
+			end--;
+		}
+		return text.substring(0, end);
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+/**
+ * Formats the count and percent shown next to the horizontal progress bar.
+ */
+public final class ProgressFormat {
+
+	private ProgressFormat() {
+	}
+
+	/**
+	 * @param progress The current progress
+	 * @param max      The max progress
+	 * @return The percent done, rounded down.
+	 */
+	public static int getPercent(int progress, int max) {
+		return (int) Math.floor((((double) progress / max) * 100));
+	}
+
+	/**
+	 * @return The progress as <code>"progress/max"</code>, for example <code>"25/200"</code>.
+	 */
+	public static String formatCount(int progress, int max) {
+		return new StringBuilder(23).append(progress).append('/').append(max).toString();
+	}
+
+	/**
+	 * @return The percent done, for example <code>"12%"</code>.
+	 */
+	public static String formatPercent(int progress, int max) {
+		return new StringBuilder(12).append(getPercent(progress, max)).append('%').toString();
+	}
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jrummy.apps.dialogs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ListDiffTest {
+
+	/** Items are the same if their key matches and have the same contents if their value matches */
+	private static final class Item {
+
+		final int key;
+		final String value;
+
+		Item(int key, String value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Item && ((Item) o).key == key && ((Item) o).value.equals(value);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * key + value.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + value;
+		}
+	}
+
+	private static final ListDiff.Callback<Item> CALLBACK = new ListDiff.Callback<Item>() {
+
+		@Override
+		public boolean areItemsTheSame(Item oldItem, Item newItem) {
+			return oldItem.key == newItem.key;
+		}
+
+		@Override
+		public boolean areContentsTheSame(Item oldItem, Item newItem) {
+			return oldItem.value.equals(newItem.value);
+		}
+	};
+
+	@Test
+	public void identicalListsHaveNoEdits() {
+		List<Item> items = items(1, 2, 3, 4);
+		assertTrue(ListDiff.diff(items, items(1, 2, 3, 4), CALLBACK).isEmpty());
+	}
+
+	@Test
+	public void insertsInTheMiddle() {
+		List<ListDiff.Edit> edits = assertDiff(items(1, 2, 4, 5), items(1, 2, 3, 4, 5));
+		assertEquals(1, edits.size());
+		assertEdit(edits.get(0), ListDiff.Edit.INSERT, 2, 2);
+	}
+
+	@Test
+	public void insertsAtBothEnds() {
+		List<ListDiff.Edit> edits = assertDiff(items(2, 3), items(1, 2, 3, 4));
+		assertEquals(2, edits.size());
+		assertTrue(ListDiff.isStructural(edits));
+	}
+
+	@Test
+	public void removesFromTheMiddle() {
+		List<ListDiff.Edit> edits = assertDiff(items(1, 2, 3, 4, 5), items(1, 2, 4, 5));
+		assertEquals(1, edits.size());
+		assertEdit(edits.get(0), ListDiff.Edit.REMOVE, 2, 2);
+	}
+
+	@Test
+	public void removesEverything() {
+		List<ListDiff.Edit> edits = assertDiff(items(1, 2, 3), items());
+		assertEquals(3, edits.size());
+	}
+
+	@Test
+	public void insertsIntoAnEmptyList() {
+		List<ListDiff.Edit> edits = assertDiff(items(), items(1, 2, 3));
+		assertEquals(3, edits.size());
+	}
+
+	@Test
+	public void movesAreARemoveAndAnInsert() {
+		List<ListDiff.Edit> edits = assertDiff(items(1, 2, 3, 4, 5), items(1, 4, 2, 3, 5));
+		assertEquals(2, edits.size());
+		assertTrue(ListDiff.isStructural(edits));
+	}
+
+	@Test
+	public void changesKeepTheirPosition() {
+		List<Item> oldList = items(1, 2, 3);
+		List<Item> newList = items(1, 2, 3);
+		newList.set(1, new Item(2, "changed"));
+		List<ListDiff.Edit> edits = assertDiff(oldList, newList);
+		assertEquals(1, edits.size());
+		assertEdit(edits.get(0), ListDiff.Edit.CHANGE, 1, 1);
+		assertFalse(ListDiff.isStructural(edits));
+	}
+
+	@Test
+	public void changesInsideTheEditedRange() {
+		List<Item> oldList = items(1, 2, 3, 4, 5);
+		List<Item> newList = items(0, 1, 3, 4, 6);
+		newList.set(2, new Item(3, "changed"));
+		assertDiff(oldList, newList);
+	}
+
+	@Test
+	public void editsAreOrderedFromTheEnd() {
+		List<ListDiff.Edit> edits = assertDiff(items(1, 2, 3, 4, 5, 6), items(0, 1, 3, 4, 6, 7));
+		for (int i = 1; i < edits.size(); i++) {
+			assertTrue(edits.toString(), edits.get(i - 1).oldPosition >= edits.get(i).oldPosition);
+		}
+	}
+
+	@Test
+	public void replacesTheRangeWhenTheDistanceIsTooLarge() {
+		int count = ListDiff.MAX_EDIT_DISTANCE;
+		List<Item> oldList = new ArrayList<Item>();
+		List<Item> newList = new ArrayList<Item>();
+		oldList.add(new Item(-1, "first"));
+		newList.add(new Item(-1, "first"));
+		for (int i = 0; i < count; i++) {
+			oldList.add(new Item(i, "old"));
+			newList.add(new Item(count + i, "new"));
+		}
+		oldList.add(new Item(-2, "last"));
+		newList.add(new Item(-2, "last"));
+
+		List<ListDiff.Edit> edits = assertDiff(oldList, newList);
+		int inserts = 0;
+		int removes = 0;
+		for (ListDiff.Edit edit : edits) {
+			if (edit.type == ListDiff.Edit.INSERT) {
+				inserts++;
+			} else if (edit.type == ListDiff.Edit.REMOVE) {
+				removes++;
+			}
+		}
+		assertEquals(count, inserts);
+		assertEquals(count, removes);
+	}
+
+	@Test
+	public void findsScriptsUpToTheMaxDistance() {
+		List<Item> oldList = new ArrayList<Item>();
+		List<Item> newList = new ArrayList<Item>();
+		for (int i = 0; i < ListDiff.MAX_EDIT_DISTANCE / 2; i++) {
+			oldList.add(new Item(2 * i, "even"));
+			newList.add(new Item(2 * i + 1, "odd"));
+		}
+		assertDiff(oldList, newList);
+	}
+
+	/**
+	 * Diffs the lists and checks that applying the edits to the old list gives the new list.
+	 */
+	private static List<ListDiff.Edit> assertDiff(List<Item> oldList, List<Item> newList) {
+		List<ListDiff.Edit> edits = ListDiff.diff(oldList, newList, CALLBACK);
+		List<Item> target = new ArrayList<Item>(oldList);
+		ListDiff.apply(target, newList, edits);
+		assertEquals(edits.toString(), newList, target);
+		return edits;
+	}
+
+	private static void assertEdit(ListDiff.Edit edit, int type, int oldPosition, int newPosition) {
+		assertEquals(edit.toString(), type, edit.type);
+		assertEquals(edit.toString(), oldPosition, edit.oldPosition);
+		assertEquals(edit.toString(), newPosition, edit.newPosition);
+	}
+
+	private static List<Item> items(int... keys) {
+		List<Item> items = new ArrayList<Item>();
+		for (int key : keys) {
+			items.add(new Item(key, "v"));
+		}
+		return items;
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jrummy.apps.dialogs;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ListItemsTest {
+
+	@Test
+	public void emptyListHasNoWords() {
+		assertEquals(0, ListItems.getCheckedBits(new ArrayList<BaseListItem>()).length);
+	}
+
+	@Test
+	public void packsOneBitPerItem() {
+		List<BaseListItem> items = items(5);
+		items.get(0).checked = true;
+		items.get(2).checked = true;
+		assertArrayEquals(new long[] { 0x5L }, ListItems.getCheckedBits(items));
+	}
+
+	@Test
+	public void packsTheWordBoundaries() {
+		List<BaseListItem> items = items(130);
+		items.get(63).checked = true;
+		items.get(64).checked = true;
+		items.get(129).checked = true;
+		assertArrayEquals(new long[] { 1L << 63, 1L, 1L << 1 }, ListItems.getCheckedBits(items));
+	}
+
+	@Test
+	public void usesWholeWords() {
+		assertEquals(1, ListItems.getCheckedBits(items(64)).length);
+		assertEquals(2, ListItems.getCheckedBits(items(65)).length);
+	}
+
+	@Test
+	public void itemsWithoutACheckBoxAreUnset() {
+		List<BaseListItem> items = items(3);
+		items.get(1).checked = null;
+		items.get(0).checked = true;
+		assertArrayEquals(new long[] { 0x1L }, ListItems.getCheckedBits(items));
+	}
+
+	@Test
+	public void restoresTheCheckState() {
+		List<BaseListItem> items = items(200);
+		for (int i = 0; i < items.size(); i += 3) {
+			items.get(i).checked = true;
+		}
+		items.get(63).checked = true;
+		items.get(64).checked = true;
+		long[] bits = ListItems.getCheckedBits(items);
+
+		List<BaseListItem> restored = items(200);
+		for (BaseListItem item : restored) {
+			item.checked = true;
+		}
+		ListItems.setCheckedBits(restored, bits);
+		assertArrayEquals(checkStates(items), checkStates(restored));
+	}
+
+	@Test
+	public void leavesItemsWithoutACheckBoxAlone() {
+		List<BaseListItem> items = items(2);
+		items.get(0).checked = null;
+		ListItems.setCheckedBits(items, new long[] { 0x3L });
+		assertNull(items.get(0).checked);
+		assertEquals(Boolean.TRUE, items.get(1).checked);
+	}
+
+	@Test
+	public void leavesItemsPastAShortBitsetAlone() {
+		List<BaseListItem> items = items(70);
+		items.get(64).checked = true;
+		ListItems.setCheckedBits(items, new long[] { 1L << 63 });
+		assertEquals(Boolean.TRUE, items.get(63).checked);
+		assertEquals(Boolean.FALSE, items.get(62).checked);
+		assertEquals(Boolean.TRUE, items.get(64).checked);
+	}
+
+	@Test
+	public void ignoresBitsPastTheEndOfTheList() {
+		List<BaseListItem> items = items(2);
+		ListItems.setCheckedBits(items, new long[] { -1L, -1L });
+		assertEquals(Boolean.TRUE, items.get(0).checked);
+		assertEquals(Boolean.TRUE, items.get(1).checked);
+	}
+
+	private static List<BaseListItem> items(int count) {
+		List<BaseListItem> items = new ArrayList<BaseListItem>(count);
+		for (int i = 0; i < count; i++) {
+			items.add(new BaseListItem("Item " + i, null, false));
+		}
+		return items;
+	}
+
+	private static boolean[] checkStates(List<BaseListItem> items) {
+		boolean[] states = new boolean[items.size()];
+		for (int i = 0; i < states.length; i++) {
+			states[i] = items.get(i).checked;
+		}
+		return states;
+	}
+}
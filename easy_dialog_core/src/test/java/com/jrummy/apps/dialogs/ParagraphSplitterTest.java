@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jrummy.apps.dialogs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ParagraphSplitterTest {
+
+	@Test
+	public void joinsLinesIntoAParagraph() throws IOException {
+		assertEquals(Arrays.asList("one\ntwo"), split("one\ntwo\n"));
+	}
+
+	@Test
+	public void everyBlankLineIsAnEmptyParagraph() throws IOException {
+		assertEquals(Arrays.asList("one", "", "two", "", "", "three"), split("one\n\ntwo\n\n\nthree"));
+	}
+
+	@Test
+	public void leadingBlankLinesAreKept() throws IOException {
+		assertEquals(Arrays.asList("", "", "one"), split("\n\none"));
+	}
+
+	@Test
+	public void ignoresCarriageReturns() throws IOException {
+		assertEquals(Arrays.asList("one\ntwo", "", "three"), split("one\r\ntwo\r\n\r\nthree\r\n"));
+	}
+
+	@Test
+	public void keepsATrailingParagraphWithoutANewline() throws IOException {
+		assertEquals(Arrays.asList("one", "", "last"), split("one\n\nlast"));
+		assertEquals(Arrays.asList("one", "", "last"), index("one\n\nlast"));
+	}
+
+	@Test
+	public void endsLongParagraphsAtTheNextLineBreak() throws IOException {
+		String line = repeat('a', 100);
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 50; i++) {
+			text.append(line).append('\n');
+		}
+		List<String> paragraphs = split(text.toString());
+		assertTrue(paragraphs.size() > 1);
+		for (String paragraph : paragraphs) {
+			assertTrue(paragraph.length() < ParagraphSplitter.PARAGRAPH_LENGTH + line.length());
+			assertFalse(paragraph.startsWith("\n") || paragraph.endsWith("\n"));
+		}
+		assertEquals(paragraphs, index(text.toString()));
+	}
+
+	@Test
+	public void splitsVeryLongLines() throws IOException {
+		String text = repeat('a', ParagraphSplitter.MAX_PARAGRAPH_LENGTH * 2 + 10);
+		List<String> paragraphs = split(text);
+		assertEquals(3, paragraphs.size());
+		assertEquals(ParagraphSplitter.MAX_PARAGRAPH_LENGTH, paragraphs.get(0).length());
+		assertEquals(text, join(paragraphs));
+		assertEquals(paragraphs, index(text));
+	}
+
+	@Test
+	public void neverSplitsASurrogatePair() throws IOException {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < ParagraphSplitter.MAX_PARAGRAPH_LENGTH; i++) {
+			text.append("\uD83D\uDE00");
+		}
+		List<String> paragraphs = split(text.toString());
+		assertTrue(paragraphs.size() > 1);
+		for (String paragraph : paragraphs) {
+			assertFalse(Character.isHighSurrogate(paragraph.charAt(paragraph.length() - 1)));
+		}
+		assertEquals(text.toString(), join(paragraphs));
+	}
+
+	@Test
+	public void neverSplitsAUtf8Sequence() throws IOException {
+		// Three bytes each, so ranges and read buffers end inside characters
+		String text = repeat('\u20AC', ParagraphSplitter.MAX_PARAGRAPH_LENGTH);
+		List<String> paragraphs = index(text);
+		assertTrue(paragraphs.size() > 1);
+		for (String paragraph : paragraphs) {
+			assertEquals(-1, paragraph.indexOf('\uFFFD'));
+		}
+		assertEquals(text, join(paragraphs));
+	}
+
+	@Test
+	public void multiByteTextAcrossBufferBoundaries() throws IOException {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 2000; i++) {
+			text.append("\u00E9t\u00E9 \u20AC").append(i).append(" \uD83D\uDE00\n");
+			if (i % 7 == 0) {
+				text.append('\n');
+			}
+		}
+		List<String> paragraphs = index(text.toString());
+		for (String paragraph : paragraphs) {
+			assertEquals(-1, paragraph.indexOf('\uFFFD'));
+		}
+		assertEquals(split(text.toString()), paragraphs);
+	}
+
+	@Test
+	public void readerAndFileGiveTheSameParagraphs() throws IOException {
+		String text = "\n\nTitle\r\n\r\nFirst line\r\nsecond line\n\n\n\n"
+				+ "caf\u00E9 \u00FCber \u65E5\u672C\u8A9E\n" + "\r\n" + "tail without a newline";
+		assertEquals(split(text), index(text));
+	}
+
+	@Test
+	public void stopsWhenTheCallbackReturnsFalse() throws IOException {
+		final List<String> paragraphs = new ArrayList<String>();
+		ParagraphSplitter.split(new StringReader("one\n\ntwo\n\nthree"), new ParagraphSplitter.TextCallback() {
+
+			@Override
+			public boolean onParagraph(String text) {
+				paragraphs.add(text);
+				return paragraphs.size() < 2;
+			}
+		});
+		assertEquals(Arrays.asList("one", ""), paragraphs);
+	}
+
+	private static List<String> split(String text) throws IOException {
+		final List<String> paragraphs = new ArrayList<String>();
+		ParagraphSplitter.split(new StringReader(text), new ParagraphSplitter.TextCallback() {
+
+			@Override
+			public boolean onParagraph(String paragraph) {
+				paragraphs.add(paragraph);
+				return true;
+			}
+		});
+		return paragraphs;
+	}
+
+	/**
+	 * Indexes the text as a UTF-8 file and reads the paragraphs back, like LongMessageAdapter does.
+	 */
+	private static List<String> index(String text) throws IOException {
+		File file = File.createTempFile("paragraphs", ".txt");
+		try {
+			FileOutputStream out = new FileOutputStream(file);
+			try {
+				out.write(text.getBytes("UTF-8"));
+			} finally {
+				out.close();
+			}
+
+			final List<long[]> ranges = new ArrayList<long[]>();
+			InputStream in = new FileInputStream(file);
+			try {
+				ParagraphSplitter.index(in, new ParagraphSplitter.RangeCallback() {
+
+					@Override
+					public boolean onParagraph(long start, int length) {
+						ranges.add(new long[] { start, length });
+						return true;
+					}
+				});
+			} finally {
+				in.close();
+			}
+
+			List<String> paragraphs = new ArrayList<String>();
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try {
+				for (long[] range : ranges) {
+					byte[] bytes = new byte[(int) range[1]];
+					raf.seek(range[0]);
+					raf.readFully(bytes);
+					paragraphs.add(ParagraphSplitter.decode(bytes, 0, bytes.length));
+				}
+			} finally {
+				raf.close();
+			}
+			return paragraphs;
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static String join(List<String> paragraphs) {
+		StringBuilder sb = new StringBuilder();
+		for (String paragraph : paragraphs) {
+			sb.append(paragraph);
+		}
+		return sb.toString();
+	}
+
+	private static String repeat(char c, int count) {
+		char[] chars = new char[count];
+		Arrays.fill(chars, c);
+		return new String(chars);
+	}
+}
@@ -5,19 +5,20 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 import android.app.Activity;
 import android.app.Dialog;
 import android.content.DialogInterface;
 import android.content.Intent;
+import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
 import android.content.res.Resources;
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.os.Environment;
-import android.os.Handler;
-import android.os.Looper;
 import android.text.Editable;
 import android.text.TextWatcher;
 import android.text.format.Formatter;
@@ -32,12 +33,20 @@ import android.widget.RelativeLayout;
 import android.widget.ScrollView;
 import android.widget.Toast;
 
+import com.jrummy.apps.dialogs.CancellationToken;
+import com.jrummy.apps.dialogs.DialogLeakDetector;
 import com.jrummy.apps.dialogs.EasyDialog;
+import com.jrummy.apps.dialogs.EasyDialogTask;
+import com.jrummy.apps.dialogs.ListIcons;
+import com.jrummy.apps.dialogs.ListItemLoader;
 import com.jrummy.apps.dialogs.EasyDialog.ListItem;
+import com.jrummy.apps.dialogs.ProgressReporter;
+import com.jrummy.apps.dialogs.TextValidator;
+import com.jrummy.apps.dialogs.WebViewPool;
 
 public class DialogExamples extends Activity implements OnClickListener {
 
-	private static final Handler mHandler = new Handler();
+	private static final Executor mExecutor = Executors.newCachedThreadPool();
 
 	private static final String[ ] BUTTON_NAMES = {
 		"Simple Dialog",
@@ -52,12 +61,18 @@ public class DialogExamples extends Activity implements OnClickListener {
 		"App List"
 	};
 
-	private boolean mCancelProgressDialog;
 	private int mSelectedPosition;
 
 	@Override
 	public void onCreate(Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
+		// Create a WebView for the changelog dialog while the app is idle
+		WebViewPool.prewarm(this);
+		// Log dialogs that outlive this Activity in debug builds
+		if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+			DialogLeakDetector.install(getApplication(), null);
+		}
+
 		ScrollView sv = new ScrollView(this);
 		sv.setLayoutParams(new LinearLayout.LayoutParams(
 				LinearLayout.LayoutParams.MATCH_PARENT, 
@@ -333,73 +348,42 @@ public class DialogExamples extends Activity implements OnClickListener {
 	}
 
 	private void showHorizontalProgressDialog() {
-		final EasyDialog dialog = new EasyDialog.Builder(this)
+		new EasyDialog.Builder(this)
 		.setTitle(R.string.please_wait)
 		.setCancelable(false)
 		.setIndeterminateProgress("Searching files...")
 		.setHorizontalProgress(1000, 0, "Searching 1,000 files...")
-		.setPositiveButton("Stop Search", new DialogInterface.OnClickListener() {
-
-			@Override
-			public void onClick(DialogInterface dialog, int which) {
-				mCancelProgressDialog = true;
-			}
-		})
-		.show();
+		.setNegativeButton("Stop Search", null)
+		.setTask(mExecutor, new EasyDialogTask<Void>() {
 
-		new Thread() {
 			@Override
-			public void run() {
-				Looper.prepare();
-				mCancelProgressDialog = false;
-
-				for (int i = 0; i < 100; i++) {
-					try {
-						Thread.sleep(80);
-					} catch (InterruptedException e) {
-					}
-
-					final boolean almostThere = i == 75;
-
-					mHandler.post(new Runnable() {
-						public void run() {
-							if (mCancelProgressDialog) {
-								dialog.dismiss();
-								return;
-							}
-
-							if (almostThere) {
-								dialog.updateProgressMessage("Almost done...");
-							}
-
-							dialog.incrementProgressBy(10);
-						}
-					});
-
-					if (mCancelProgressDialog) {
-						break;
+			protected Void doInBackground(CancellationToken token, ProgressReporter progress) 
+					throws Exception {
+				for (int i = 0; i < 100 && !token.isCancelled(); i++) {
+					Thread.sleep(80);
+					if (i == 75) {
+						progress.setMessage("Almost done...");
 					}
+					progress.incrementProgressBy(10);
 				}
+				return null;
+			}
 
-				mHandler.post(new Runnable() {
-					public void run() {
-						EasyDialog.Builder finishedProgressDialog = new EasyDialog.Builder(DialogExamples.this)
-						.setTitle("Search Complete!")
-						.setMessage("We finished the job!")
-						.setPositiveButton("Close", new DialogInterface.OnClickListener() {
-
-							@Override
-							public void onClick(DialogInterface dialog, int which) {
-								dialog.dismiss();
-							}
-						});
+			@Override
+			protected EasyDialog.Builder onSuccess(EasyDialog dialog, Void result) {
+				return new EasyDialog.Builder(DialogExamples.this)
+				.setTitle("Search Complete!")
+				.setMessage("We finished the job!")
+				.setPositiveButton("Close", new DialogInterface.OnClickListener() {
 
-						dialog.build(finishedProgressDialog);
+					@Override
+					public void onClick(DialogInterface dialog, int which) {
+						dialog.dismiss();
 					}
 				});
-
 			}
-		}.start();
+		})
+		.show();
 	}
 
 	private void showEditTextDialog() {
@@ -407,6 +391,13 @@ public class DialogExamples extends Activity implements OnClickListener {
 		.setTitle("What's your name?")
 		.setMessage("Please enter your name:")
 		.setEditText("", "Your Name", null)
+		.setEditTextValidator(new TextValidator() {
+
+			@Override
+			protected CharSequence validate(CancellationToken token, String text) {
+				return text.trim().length() == 0 ? "Please enter your name" : null;
+			}
+		})
 		.setNegativeButton(R.string.db_close, new DialogInterface.OnClickListener() {
 
 			@Override
@@ -531,40 +522,24 @@ public class DialogExamples extends Activity implements OnClickListener {
 	}
 
 	private void showAppsDialog() {
-		final EasyDialog dialog = new EasyDialog.Builder(this)
+		final PackageManager pm = getPackageManager();
+		final int iconSize = ListIcons.getIconSize(this);
+
+		new EasyDialog.Builder(this)
 		.setTitle("Please Wait...")
 		.setIndeterminateProgress("Loading Applications...")
-		.show();
+		.setTask(mExecutor, new EasyDialogTask<List<ResolveInfo>>() {
 
-		new Thread() {
 			@Override
-			public void run() {
-				Looper.prepare();
-
-				PackageManager pm = getPackageManager();
+			protected List<ResolveInfo> doInBackground(CancellationToken token, ProgressReporter progress) {
 				Intent intent = new Intent(Intent.ACTION_MAIN);
 				intent.addCategory(Intent.CATEGORY_LAUNCHER);
-				List<ResolveInfo> resolves = pm.queryIntentActivities(intent, 0);
-
-				dialog.getBuilder().setHorizontalProgress(
-						resolves.size(), 0, "Loading app info...");
-				dialog.rebuild(mHandler);
-
-				List<ListItem> items = new ArrayList<ListItem>();
-				for (ResolveInfo app : resolves) {
-					ListItem item = new ListItem();
-					item.label = app.loadLabel(pm).toString();
-					item.icon = app.loadIcon(pm);
-					item.subLabel = app.activityInfo.packageName;
-					item.checked = false;
-					item.data = app;
-					items.add(item);
-					dialog.incrementProgress(mHandler);
-				}
-
-				Collections.sort(items, EasyDialog.LIST_ITEM_COMPARATOR);
+				return pm.queryIntentActivities(intent, 0);
+			}
 
-				dialog.build(new EasyDialog.Builder(DialogExamples.this)
+			@Override
+			protected EasyDialog.Builder onSuccess(final EasyDialog dialog, List<ResolveInfo> resolves) {
+				return new EasyDialog.Builder(DialogExamples.this)
 				.setTitle("Installed Apps")
 				.setTitleCheckBox(false, new CompoundButton.OnCheckedChangeListener() {
 
@@ -574,13 +549,30 @@ public class DialogExamples extends Activity implements OnClickListener {
 					}
 				})
 				.setFastScrollEnabled(true)
-				.setMultiChoiceItems(items, new DialogInterface.OnMultiChoiceClickListener() {
+				// Drop the app icons when the dialog is dismissed
+				.setReleaseOnDismiss(true)
+				.setHorizontalProgress(resolves.size(), 0, "Loading app info...")
+				.setMultiChoiceItems(new ArrayList<ListItem>(), new DialogInterface.OnMultiChoiceClickListener() {
 
 					@Override
 					public void onClick(DialogInterface dialog, int which, boolean isChecked) {
 
 					}
 				})
+				.setListItemLoader(resolves, new ListItemLoader<ResolveInfo>() {
+
+					@Override
+					protected ListItem loadItem(ResolveInfo app) {
+						ListItem item = new ListItem();
+						item.label = app.loadLabel(pm).toString();
+						// Keep only a bitmap of the row's icon size, not the full launcher icon
+						item.icon = ListIcons.scale(getResources(), app.loadIcon(pm), iconSize);
+						item.subLabel = app.activityInfo.packageName;
+						item.checked = false;
+						item.data = app;
+						return item;
+					}
+				})
 				.setPositiveButton("Done", new DialogInterface.OnClickListener() {
 
 					@Override
@@ -588,9 +580,10 @@ public class DialogExamples extends Activity implements OnClickListener {
 						showSelectedApps(((EasyDialog) dialog).getCheckedItems());
 						dialog.dismiss();
 					}
-				}), mHandler);
+				});
 			}
-		}.start();
+		})
+		.show();
 	}
 
 	private void showSelectedApps(List<ListItem> selectedItems) {
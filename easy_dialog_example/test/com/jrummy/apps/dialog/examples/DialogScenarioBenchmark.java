@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialog.examples;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowDialog;
+
+import android.app.Dialog;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AbsListView;
+import android.widget.AdapterView;
+import android.widget.Button;
+
+import com.jrummy.apps.dialogs.AdapterStats;
+import com.jrummy.apps.dialogs.EasyDialog;
+import com.jrummy.apps.dialogs.EasyDialogListAdapter;
+
+/**
+ * Opens every dialog of {@link DialogExamples} on a headless Robolectric device and measures each step:
+ * <ul>
+ * <li><b>show</b>: clicking the example's button until the dialog is built and showing</li>
+ * <li><b>scroll</b>: binding N rows of the list through a screen's worth of recycled views</li>
+ * <li><b>tap</b>: the default click handling of the first list item</li>
+ * <li><b>rebuild</b>: {@link EasyDialog#rebuild()}</li>
+ * </ul>
+ * Each step records wall time, bytes allocated on the UI thread, rows inflated, the number of views in the
+ * dialog and the time of a full measure and layout pass afterwards. Times are JVM times, so compare reports
+ * from the same machine.
+ * <br><br>
+ * Not part of the normal test run. Run it from the root of the project with:
+ * <pre>
+ * mvn -pl easy_dialog_example -am verify -Pscenario-benchmark
+ * </pre>
+ * The report is written to <code>easy_dialog_example/target/scenario-benchmark.json</code>, or to the
+ * file in the <code>scenario.report</code> system property. Set the system
+ * properties <code>scenario.iterations</code>, <code>scenario.warmup</code> and <code>scenario.scrollItems</code>
+ * to change the number of samples and rows.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = 18)
+public class DialogScenarioBenchmark {
+
+	private static final int ITERATIONS = Integer.getInteger("scenario.iterations", 20);
+	private static final int WARMUP = Integer.getInteger("scenario.warmup", 5);
+	private static final int SCROLL_ITEMS = Integer.getInteger("scenario.scrollItems", 1000);
+	private static final String REPORT = System.getProperty("scenario.report", "target/scenario-benchmark.json");
+
+	/** About one screen of rows, the number of views a ListView keeps for recycling */
+	private static final int RECYCLED_VIEWS = 10;
+	/** How long to wait for a dialog's background task */
+	private static final long TASK_TIMEOUT_MILLIS = 10000;
+
+	private static final int BUTTON_SIMPLE = 0;
+	private static final int BUTTON_SINGLE_CHOICE = 1;
+	private static final int BUTTON_MULTI_CHOICE = 2;
+	private static final int BUTTON_LIST = 3;
+	private static final int BUTTON_PROGRESS = 4;
+	private static final int BUTTON_HORIZONTAL_PROGRESS = 5;
+	private static final int BUTTON_EDIT_TEXT = 6;
+	private static final int BUTTON_WEB_VIEW = 7;
+	private static final int BUTTON_ALL_CONTROLS = 8;
+	private static final int BUTTON_APPS = 9;
+
+	private static final ScenarioReport sReport = new ScenarioReport();
+
+	private final ThreadMXBean mThreadBean = ManagementFactory.getThreadMXBean();
+
+	@Test
+	public void simpleDialog() {
+		runScenario(BUTTON_SIMPLE);
+	}
+
+	@Test
+	public void singleChoiceDialog() {
+		runScenario(BUTTON_SINGLE_CHOICE);
+	}
+
+	@Test
+	public void multiChoiceDialog() {
+		runScenario(BUTTON_MULTI_CHOICE);
+	}
+
+	@Test
+	public void listDialog() {
+		runScenario(BUTTON_LIST);
+	}
+
+	@Test
+	public void progressDialog() {
+		runScenario(BUTTON_PROGRESS);
+	}
+
+	@Test
+	public void horizontalProgressDialog() {
+		runScenario(BUTTON_HORIZONTAL_PROGRESS);
+	}
+
+	@Test
+	public void editTextDialog() {
+		runScenario(BUTTON_EDIT_TEXT);
+	}
+
+	@Test
+	public void webViewDialog() {
+		runScenario(BUTTON_WEB_VIEW);
+	}
+
+	@Test
+	public void allControlsDialog() {
+		runScenario(BUTTON_ALL_CONTROLS);
+	}
+
+	@Test
+	public void appsDialog() {
+		runScenario(BUTTON_APPS);
+	}
+
+	@AfterClass
+	public static void writeReport() throws Exception {
+		Map<String, Object> config = new LinkedHashMap<String, Object>();
+		config.put("iterations", ITERATIONS);
+		config.put("warmup", WARMUP);
+		config.put("scrollItems", SCROLL_ITEMS);
+		config.put("sdk", 18);
+		config.put("java", System.getProperty("java.version"));
+		sReport.write(new File(REPORT), config);
+	}
+
+	private void runScenario(int buttonId) {
+		DialogExamples activity = Robolectric.buildActivity(DialogExamples.class)
+				.create().start().resume().visible().get();
+		Button button = (Button) activity.findViewById(buttonId);
+		String name = button.getText().toString();
+
+		for (int i = 0; i < WARMUP + ITERATIONS; i++) {
+			boolean record = i >= WARMUP;
+
+			Sample sample = start();
+			button.performClick();
+			EasyDialog dialog = waitForDialog(buttonId);
+			finish(sample, record, name, "show", dialog);
+
+			EasyDialogListAdapter adapter = dialog.getDialogListAdapter();
+			if (adapter != null && adapter.getCount() > 0) {
+				adapter.setStatsEnabled(true);
+				AbsListView list = getVisibleList(dialog);
+
+				sample = start();
+				scroll(adapter, list);
+				finish(sample, record, name, "scroll", dialog);
+
+				sample = start();
+				list.performItemClick(list.getChildCount() > 0 ? list.getChildAt(0) : null, 0, adapter.getItemId(0));
+				finish(sample, record, name, "tap", dialog);
+			}
+
+			sample = start();
+			dialog.rebuild();
+			finish(sample, record, name, "rebuild", dialog);
+
+			dialog.dismiss();
+			Robolectric.runUiThreadTasksIncludingDelayedTasks();
+		}
+		activity.finish();
+	}
+
+	/**
+	 * Binds {@link #SCROLL_ITEMS} rows like a ListView scrolling down, reusing one screen of views.
+	 */
+	private static void scroll(EasyDialogListAdapter adapter, ViewGroup parent) {
+		View[] recycled = new View[RECYCLED_VIEWS];
+		int count = adapter.getCount();
+		for (int i = 0; i < SCROLL_ITEMS; i++) {
+			int slot = i % RECYCLED_VIEWS;
+			recycled[slot] = adapter.getView(i % count, recycled[slot], parent);
+		}
+	}
+
+	private static AbsListView getVisibleList(EasyDialog dialog) {
+		return dialog.getGridView().getVisibility() == View.VISIBLE ? dialog.getGridView() : dialog.getListView();
+	}
+
+	/**
+	 * @return The dialog opened by the button. The apps dialog is returned once its task has loaded the list.
+	 */
+	private static EasyDialog waitForDialog(int buttonId) {
+		long deadline = System.currentTimeMillis() + TASK_TIMEOUT_MILLIS;
+		while (true) {
+			Robolectric.runUiThreadTasksIncludingDelayedTasks();
+			Dialog dialog = ShadowDialog.getLatestDialog();
+			if (dialog instanceof EasyDialog && (buttonId != BUTTON_APPS
+					|| ((EasyDialog) dialog).getDialogListAdapter() != null)) {
+				return (EasyDialog) dialog;
+			}
+			if (System.currentTimeMillis() > deadline) {
+				throw new AssertionError("Dialog " + buttonId + " wasn't shown");
+			}
+			try {
+				Thread.sleep(5);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new AssertionError(e);
+			}
+		}
+	}
+
+	private Sample start() {
+		Sample sample = new Sample();
+		sample.mAllocatedBytes = getAllocatedBytes();
+		sample.mStartNanos = System.nanoTime();
+		return sample;
+	}
+
+	private void finish(Sample sample, boolean record, String dialogName, String step, EasyDialog dialog) {
+		long wallNanos = System.nanoTime() - sample.mStartNanos;
+		long allocatedBytes = getAllocatedBytes() - sample.mAllocatedBytes;
+
+		View root = dialog.getWindow().getDecorView();
+		long layoutStart = System.nanoTime();
+		root.measure(View.MeasureSpec.makeMeasureSpec(480, View.MeasureSpec.AT_MOST),
+				View.MeasureSpec.makeMeasureSpec(800, View.MeasureSpec.AT_MOST));
+		root.layout(0, 0, root.getMeasuredWidth(), root.getMeasuredHeight());
+		long layoutNanos = System.nanoTime() - layoutStart;
+
+		EasyDialogListAdapter adapter = dialog.getDialogListAdapter();
+		AdapterStats stats = adapter != null ? adapter.getStats() : null;
+		if (stats != null) {
+			// Count the next step from zero
+			adapter.setStatsEnabled(true);
+		}
+
+		if (!record) {
+			return;
+		}
+		sReport.add(dialogName, step, ScenarioReport.WALL_MICROS, wallNanos / 1000);
+		if (allocatedBytes >= 0) {
+			sReport.add(dialogName, step, ScenarioReport.ALLOCATED_BYTES, allocatedBytes);
+		}
+		if (stats != null) {
+			sReport.add(dialogName, step, ScenarioReport.INFLATIONS, stats.getInflateCount());
+		}
+		sReport.add(dialogName, step, ScenarioReport.VIEWS, countViews(root));
+		sReport.add(dialogName, step, ScenarioReport.LAYOUT_MICROS, layoutNanos / 1000);
+	}
+
+	/**
+	 * @return The bytes allocated by this thread so far, or -1 if the JVM doesn't count them.
+	 */
+	private long getAllocatedBytes() {
+		if (mThreadBean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) mThreadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	private static int countViews(View view) {
+		int count = 1;
+		if (view instanceof ViewGroup && !(view instanceof AdapterView)) {
+			ViewGroup group = (ViewGroup) view;
+			for (int i = 0; i < group.getChildCount(); i++) {
+				count += countViews(group.getChildAt(i));
+			}
+		}
+		return count;
+	}
+
+	private static class Sample {
+		long mStartNanos;
+		long mAllocatedBytes;
+	}
+}
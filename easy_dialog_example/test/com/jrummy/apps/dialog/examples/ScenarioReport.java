@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialog.examples;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Collects the samples of the scenario benchmarks and writes them as JSON.
+ * <br><br>
+ * The report has one entry per dialog and step, with the median, 90th percentile, min and max of each metric.
+ * Entries are written in the order they were first recorded, so reports from two versions can be diffed.
+ */
+final class ScenarioReport {
+
+	static final String WALL_MICROS = "wallMicros";
+	static final String ALLOCATED_BYTES = "allocatedBytes";
+	static final String INFLATIONS = "inflations";
+	static final String VIEWS = "views";
+	static final String LAYOUT_MICROS = "layoutMicros";
+
+	/** dialog name -> step -> metric -> samples */
+	private final Map<String, Map<String, Map<String, List<Long>>>> mSamples =
+			new LinkedHashMap<String, Map<String, Map<String, List<Long>>>>();
+
+	synchronized void add(String dialog, String step, String metric, long value) {
+		Map<String, Map<String, List<Long>>> steps = mSamples.get(dialog);
+		if (steps == null) {
+			steps = new LinkedHashMap<String, Map<String, List<Long>>>();
+			mSamples.put(dialog, steps);
+		}
+		Map<String, List<Long>> metrics = steps.get(step);
+		if (metrics == null) {
+			metrics = new LinkedHashMap<String, List<Long>>();
+			steps.put(step, metrics);
+		}
+		List<Long> values = metrics.get(metric);
+		if (values == null) {
+			values = new ArrayList<Long>();
+			metrics.put(metric, values);
+		}
+		values.add(value);
+	}
+
+	synchronized void write(File file, Map<String, Object> config) throws IOException {
+		File dir = file.getParentFile();
+		if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Could not create " + dir);
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\n  \"config\": {");
+		boolean first = true;
+		for (Map.Entry<String, Object> entry : config.entrySet()) {
+			sb.append(first ? "\n" : ",\n");
+			first = false;
+			sb.append("    ").append(quote(entry.getKey())).append(": ");
+			Object value = entry.getValue();
+			sb.append(value instanceof Number ? value.toString() : quote(String.valueOf(value)));
+		}
+		sb.append("\n  },\n  \"scenarios\": [");
+		first = true;
+		for (Map.Entry<String, Map<String, Map<String, List<Long>>>> dialog : mSamples.entrySet()) {
+			for (Map.Entry<String, Map<String, List<Long>>> step : dialog.getValue().entrySet()) {
+				sb.append(first ? "\n" : ",\n");
+				first = false;
+				sb.append("    {\"dialog\": ").append(quote(dialog.getKey()))
+						.append(", \"step\": ").append(quote(step.getKey()));
+				for (Map.Entry<String, List<Long>> metric : step.getValue().entrySet()) {
+					long[] values = sorted(metric.getValue());
+					sb.append(",\n      ").append(quote(metric.getKey())).append(": {")
+							.append("\"samples\": ").append(values.length)
+							.append(", \"median\": ").append(percentile(values, 50))
+							.append(", \"p90\": ").append(percentile(values, 90))
+							.append(", \"min\": ").append(values[0])
+							.append(", \"max\": ").append(values[values.length - 1])
+							.append("}");
+				}
+				sb.append("}");
+			}
+		}
+		sb.append("\n  ]\n}\n");
+
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			writer.write(sb.toString());
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static long[] sorted(List<Long> values) {
+		long[] array = new long[values.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = values.get(i);
+		}
+		Arrays.sort(array);
+		return array;
+	}
+
+	private static long percentile(long[] sorted, int percentile) {
+		int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+	}
+
+	private static String quote(String text) {
+		StringBuilder sb = new StringBuilder(text.length() + 2).append('"');
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			} else if (c < 0x20) {
+				sb.append(String.format(Locale.US, "\\u%04x", (int) c));
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.append('"').toString();
+	}
+}
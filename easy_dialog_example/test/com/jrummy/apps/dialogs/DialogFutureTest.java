@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jrummy.apps.dialogs;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.app.Activity;
+
+/**
+ * Tests how a {@link DialogFuture} completes when its dialog can't be shown.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = 18)
+public class DialogFutureTest {
+
+	private Activity mActivity;
+
+	@Before
+	public void setUp() {
+		mActivity = Robolectric.buildActivity(Activity.class).create().start().resume().visible().get();
+	}
+
+	@Test
+	public void failsWhenDialogCannotBeShown() throws Exception {
+		final RuntimeException failure = new RuntimeException("Unable to add window");
+		DialogFuture future = new EasyDialog.Builder(mActivity) {
+
+			@Override
+			public EasyDialog create() {
+				throw failure;
+			}
+		}.setTitle("Dialog").showForResult();
+
+		assertTrue(future.isDone());
+		assertFalse(future.isCancelled());
+		Throwable thrown = getFromBackground(future);
+		assertTrue(thrown instanceof ExecutionException);
+		assertSame(failure, thrown.getCause());
+	}
+
+	/**
+	 * Calls {@link DialogFuture#get(long, TimeUnit)} on a background thread, which is where callers wait.
+	 * 
+	 * @return The exception it threw
+	 */
+	private static Throwable getFromBackground(final DialogFuture future) throws InterruptedException {
+		final Throwable[] thrown = new Throwable[1];
+		Thread thread = new Thread() {
+
+			@Override
+			public void run() {
+				try {
+					future.get(5, TimeUnit.SECONDS);
+				} catch (Throwable e) {
+					thrown[0] = e;
+				}
+			}
+		};
+		thread.start();
+		thread.join();
+		if (thrown[0] == null) {
+			fail("get() returned a result");
+		}
+		return thrown[0];
+	}
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jrummy.apps.dialogs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.app.Activity;
+
+/**
+ * Tests the order in which {@link DialogQueue} shows dialogs, how it coalesces tags and how it recovers
+ * when an Activity goes away.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(emulateSdk = 18)
+public class DialogQueueTest {
+
+	private Activity mActivity;
+	private DialogQueue mQueue;
+
+	@Before
+	public void setUp() {
+		DialogQueue.reset();
+		mActivity = Robolectric.buildActivity(Activity.class).create().start().resume().visible().get();
+		mQueue = DialogQueue.getInstance();
+	}
+
+	@After
+	public void tearDown() {
+		mQueue.clear();
+		EasyDialog current = mQueue.getCurrentDialog();
+		if (current != null) {
+			current.dismiss();
+		}
+		DialogQueue.reset();
+	}
+
+	@Test
+	public void showsHighestPriorityFirst() {
+		EasyDialog.Builder low = builder(mActivity, null);
+		EasyDialog.Builder normal1 = builder(mActivity, null);
+		EasyDialog.Builder high = builder(mActivity, null);
+		EasyDialog.Builder normal2 = builder(mActivity, null);
+
+		Robolectric.pauseMainLooper();
+		mQueue.submit(low, DialogQueue.PRIORITY_LOW);
+		mQueue.submit(normal1);
+		mQueue.submit(high, DialogQueue.PRIORITY_HIGH);
+		mQueue.submit(normal2);
+		Robolectric.unPauseMainLooper();
+
+		assertShowing(high);
+		assertShowing(normal1);
+		assertShowing(normal2);
+		assertShowing(low);
+		assertNull(mQueue.getCurrentDialog());
+	}
+
+	@Test
+	public void replacesQueuedBuilderWithEqualTag() {
+		EasyDialog.Builder first = builder(mActivity, null);
+		EasyDialog.Builder tagged1 = builder(mActivity, "progress");
+		EasyDialog.Builder other = builder(mActivity, null);
+		EasyDialog.Builder tagged2 = builder(mActivity, "progress");
+
+		Robolectric.pauseMainLooper();
+		mQueue.submit(first);
+		mQueue.submit(tagged1);
+		mQueue.submit(other);
+		mQueue.submit(tagged2);
+		assertEquals(3, mQueue.getPendingCount());
+		Robolectric.unPauseMainLooper();
+
+		// The second tagged Builder took the place of the first
+		assertShowing(first);
+		assertShowing(tagged2);
+		assertShowing(other);
+	}
+
+	@Test
+	public void rebuildsShowingDialogWithEqualTag() {
+		EasyDialog.Builder tagged1 = builder(mActivity, "progress");
+		EasyDialog.Builder tagged2 = builder(mActivity, "progress");
+
+		mQueue.submit(tagged1);
+		EasyDialog dialog = mQueue.getCurrentDialog();
+		assertSame(tagged1, dialog.getBuilder());
+
+		mQueue.submit(tagged2);
+		assertEquals(0, mQueue.getPendingCount());
+		assertSame(dialog, mQueue.getCurrentDialog());
+		assertSame(tagged2, dialog.getBuilder());
+	}
+
+	@Test
+	public void higherPriorityOfEqualTagIsKept() {
+		EasyDialog.Builder first = builder(mActivity, null);
+		EasyDialog.Builder other = builder(mActivity, null);
+		EasyDialog.Builder tagged1 = builder(mActivity, "progress");
+		EasyDialog.Builder tagged2 = builder(mActivity, "progress");
+
+		Robolectric.pauseMainLooper();
+		mQueue.submit(first);
+		mQueue.submit(other);
+		mQueue.submit(tagged1, DialogQueue.PRIORITY_HIGH);
+		mQueue.submit(tagged2, DialogQueue.PRIORITY_LOW);
+		Robolectric.unPauseMainLooper();
+
+		assertShowing(tagged2);
+		assertShowing(first);
+		assertShowing(other);
+	}
+
+	@Test
+	public void dropsBuildersOfFinishingActivity() {
+		Activity finishing = Robolectric.buildActivity(Activity.class).create().start().resume().visible().get();
+		EasyDialog.Builder dropped = builder(finishing, null);
+		EasyDialog.Builder shown = builder(mActivity, null);
+
+		Robolectric.pauseMainLooper();
+		mQueue.submit(dropped, DialogQueue.PRIORITY_HIGH);
+		mQueue.submit(shown);
+		finishing.finish();
+		Robolectric.unPauseMainLooper();
+
+		assertEquals(0, mQueue.getPendingCount());
+		assertShowing(shown);
+	}
+
+	@Test
+	public void removedWindowUnblocksQueue() {
+		EasyDialog.Builder first = builder(mActivity, null);
+		EasyDialog.Builder second = builder(mActivity, null);
+
+		Robolectric.pauseMainLooper();
+		mQueue.submit(first);
+		mQueue.submit(second);
+		Robolectric.unPauseMainLooper();
+
+		// The Activity was destroyed without the dialog being dismissed
+		EasyDialog removed = mQueue.getCurrentDialog();
+		assertSame(first, removed.getBuilder());
+		DialogQueue.onWindowRemoved(removed);
+		assertSame(second, mQueue.getCurrentDialog().getBuilder());
+		assertEquals(0, mQueue.getPendingCount());
+	}
+
+	@Test
+	public void dismissAfterWindowRemovedIsIgnored() {
+		EasyDialog.Builder first = builder(mActivity, null);
+		EasyDialog.Builder second = builder(mActivity, null);
+
+		Robolectric.pauseMainLooper();
+		mQueue.submit(first);
+		mQueue.submit(second);
+		Robolectric.unPauseMainLooper();
+
+		// The order of calls when dismiss() removes the window with removeViewImmediate()
+		EasyDialog dialog = mQueue.getCurrentDialog();
+		DialogQueue.onWindowRemoved(dialog);
+		EasyDialog next = mQueue.getCurrentDialog();
+		dialog.dismiss();
+
+		assertSame(next, mQueue.getCurrentDialog());
+		assertSame(second, next.getBuilder());
+		assertEquals(0, mQueue.getPendingCount());
+	}
+
+	/**
+	 * Asserts that the dialog of the Builder is showing and dismisses it.
+	 */
+	private void assertShowing(EasyDialog.Builder builder) {
+		EasyDialog dialog = mQueue.getCurrentDialog();
+		assertSame(builder, dialog.getBuilder());
+		dialog.dismiss();
+		Robolectric.runUiThreadTasksIncludingDelayedTasks();
+	}
+
+	private static EasyDialog.Builder builder(Activity activity, Object tag) {
+		return new EasyDialog.Builder(activity).setTitle("Dialog").setTag(tag);
+	}
+}
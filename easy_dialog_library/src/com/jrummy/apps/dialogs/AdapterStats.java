@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+/**
+ * A snapshot of how an {@link EasyDialogListAdapter} has bound its rows.
+ * <br><br>
+ * A healthy list inflates about one screen of rows and then only recycles. A list that keeps
+ * inflating while scrolling, or that is notified of a full change on every tap, shows up here as a
+ * low recycle ratio or a high notify count. Bind times are counted in buckets of
+ * {@link #getBucketUpperBoundMicros(int)} microseconds.
+ *
+ * @see EasyDialogListAdapter#setStatsEnabled(boolean)
+ */
+public final class AdapterStats {
+
+	private static final long[] BUCKET_UPPER_BOUNDS_MICROS = {
+		50, 100, 250, 500, 1000, 2000, 4000, 8000, 16000, Long.MAX_VALUE
+	};
+
+	/** The number of buckets in {@link #getBindTimeHistogram()} */
+	public static final int BUCKET_COUNT = BUCKET_UPPER_BOUNDS_MICROS.length;
+
+	private final int mGetViewCount;
+	private final int mInflateCount;
+	private final int mRecycleCount;
+	private final int mNotifyCount;
+	private final long mBindTimeNanos;
+	private final int[] mBindTimeHistogram;
+
+	private AdapterStats(Recorder recorder) {
+		mGetViewCount = recorder.mGetViewCount;
+		mInflateCount = recorder.mInflateCount;
+		mRecycleCount = recorder.mRecycleCount;
+		mNotifyCount = recorder.mNotifyCount;
+		mBindTimeNanos = recorder.mBindTimeNanos;
+		mBindTimeHistogram = recorder.mBindTimeHistogram.clone();
+	}
+
+	/** @return The number of calls to <code>getView</code>. */
+	public int getGetViewCount() {
+		return mGetViewCount;
+	}
+
+	/** @return The number of rows that were inflated. */
+	public int getInflateCount() {
+		return mInflateCount;
+	}
+
+	/** @return The number of rows that reused a recycled view. */
+	public int getRecycleCount() {
+		return mRecycleCount;
+	}
+
+	/** @return The share of <code>getView</code> calls that reused a recycled view, from 0 to 1. */
+	public float getRecycleRatio() {
+		return mGetViewCount == 0 ? 0 : (float) mRecycleCount / mGetViewCount;
+	}
+
+	/** @return The number of calls to <code>notifyDataSetChanged</code>. */
+	public int getNotifyCount() {
+		return mNotifyCount;
+	}
+
+	/** @return The total time spent binding items to rows in nanoseconds. */
+	public long getBindTimeNanos() {
+		return mBindTimeNanos;
+	}
+
+	/**
+	 * @return The number of binds in each bucket. Bucket <code>i</code> counts the binds that took
+	 *         at most {@link #getBucketUpperBoundMicros(int)} microseconds and more than the bucket before it.
+	 */
+	public int[] getBindTimeHistogram() {
+		return mBindTimeHistogram.clone();
+	}
+
+	/**
+	 * @param bucket The index of a bucket in {@link #getBindTimeHistogram()}
+	 * @return The longest bind time counted in the bucket, or {@link Long#MAX_VALUE} for the last bucket.
+	 */
+	public static long getBucketUpperBoundMicros(int bucket) {
+		return BUCKET_UPPER_BOUNDS_MICROS[bucket];
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("AdapterStats{getView=").append(mGetViewCount)
+				.append(", inflate=").append(mInflateCount)
+				.append(", recycle=").append(mRecycleCount)
+				.append(", notify=").append(mNotifyCount)
+				.append(", bindTimeNanos=").append(mBindTimeNanos)
+				.append(", histogram=[");
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append(mBindTimeHistogram[i]);
+		}
+		return sb.append("]}").toString();
+	}
+
+	/**
+	 * Counts the adapter's work. Used on the UI thread only.
+	 */
+	static final class Recorder {
+
+		private int mGetViewCount;
+		private int mInflateCount;
+		private int mRecycleCount;
+		private int mNotifyCount;
+		private long mBindTimeNanos;
+		private final int[] mBindTimeHistogram = new int[BUCKET_COUNT];
+
+		void onGetView(boolean inflated) {
+			mGetViewCount++;
+			if (inflated) {
+				mInflateCount++;
+			} else {
+				mRecycleCount++;
+			}
+		}
+
+		void onBind(long nanos) {
+			mBindTimeNanos += nanos;
+			long micros = nanos / 1000;
+			int bucket = 0;
+			while (micros > BUCKET_UPPER_BOUNDS_MICROS[bucket]) {
+				bucket++;
+			}
+			mBindTimeHistogram[bucket]++;
+		}
+
+		void onNotify() {
+			mNotifyCount++;
+		}
+
+		AdapterStats snapshot() {
+			return new AdapterStats(this);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.os.Build;
+
+/**
+ * Executors used by the library when the caller doesn't supply one.
+ */
+public final class DialogExecutors {
+
+	private static final int POOL_SIZE = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+	private static Executor sBackgroundExecutor;
+
+	private DialogExecutors() {
+	}
+
+	/**
+	 * @return A small shared pool of low priority daemon threads. Idle threads are released after a few seconds.
+	 */
+	public static synchronized Executor getBackgroundExecutor() {
+		if (sBackgroundExecutor == null) {
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE,
+					3, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), sThreadFactory);
+			if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.GINGERBREAD) {
+				executor.allowCoreThreadTimeOut(true);
+			}
+			sBackgroundExecutor = executor;
+		}
+		return sBackgroundExecutor;
+	}
+
+	private static final ThreadFactory sThreadFactory = new ThreadFactory() {
+
+		private final AtomicInteger mCount = new AtomicInteger(1);
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "EasyDialog #" + mCount.getAndIncrement());
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		}
+	};
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+/**
+ * The pending {@link DialogResult} of a dialog shown with {@link EasyDialog.Builder#showForResult()}.
+ * <br><br>
+ * The future completes when a button is pressed, or when a list item is clicked in a list that has no
+ * CheckBoxes or RadioButtons. The dialog is then dismissed. If the dialog is canceled or dismissed in another
+ * way, the future is canceled. Canceling the future dismisses the dialog. If the dialog can't be created or
+ * shown, for example because its Activity was destroyed, the future completes with the exception and
+ * {@link #get()} throws an {@link ExecutionException}.
+ * <br><br>
+ * All methods can be called from any thread. Waiting for the result on the UI thread would block the dialog,
+ * so {@link #get()} throws an {@link IllegalStateException} there.
+ */
+public final class DialogFuture implements Future<DialogResult> {
+
+	private static final String TAG = "DialogFuture";
+
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+	// Guarded by this
+	private boolean mDone;
+	private boolean mCancelled;
+	private DialogResult mResult;
+	private Throwable mFailure;
+	private EasyDialog mDialog;
+
+	DialogFuture() {
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		final EasyDialog dialog;
+		synchronized (this) {
+			if (mDone) {
+				return false;
+			}
+			mDone = true;
+			mCancelled = true;
+			dialog = mDialog;
+			mDialog = null;
+			notifyAll();
+		}
+		if (dialog != null) {
+			mHandler.post(new Runnable() {
+
+				@Override
+				public void run() {
+					dialog.dismiss();
+				}
+			});
+		}
+		return true;
+	}
+
+	@Override
+	public synchronized boolean isCancelled() {
+		return mCancelled;
+	}
+
+	@Override
+	public synchronized boolean isDone() {
+		return mDone;
+	}
+
+	/**
+	 * Waits for the dialog to be closed.
+	 * 
+	 * @return The result
+	 * @throws CancellationException If the dialog was canceled or dismissed without a result.
+	 * @throws ExecutionException    If the dialog couldn't be shown.
+	 * @throws InterruptedException  If the thread was interrupted while waiting.
+	 */
+	@Override
+	public synchronized DialogResult get() throws InterruptedException, ExecutionException {
+		checkNotMainThread();
+		while (!mDone) {
+			wait();
+		}
+		return getResult();
+	}
+
+	/**
+	 * Waits for the dialog to be closed, at most for the given time.
+	 * 
+	 * @return The result
+	 * @throws CancellationException If the dialog was canceled or dismissed without a result.
+	 * @throws ExecutionException    If the dialog couldn't be shown.
+	 * @throws InterruptedException  If the thread was interrupted while waiting.
+	 * @throws TimeoutException      If the dialog is still showing after the time.
+	 */
+	@Override
+	public synchronized DialogResult get(long timeout, TimeUnit unit)
+			throws InterruptedException, ExecutionException, TimeoutException {
+		checkNotMainThread();
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (!mDone) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				throw new TimeoutException();
+			}
+			TimeUnit.NANOSECONDS.timedWait(this, remaining);
+		}
+		return getResult();
+	}
+
+	private DialogResult getResult() throws ExecutionException {
+		if (mFailure != null) {
+			throw new ExecutionException("The dialog couldn't be shown", mFailure);
+		}
+		if (mCancelled) {
+			throw new CancellationException("The dialog was closed without a result");
+		}
+		return mResult;
+	}
+
+	private static void checkNotMainThread() {
+		if (Looper.myLooper() == Looper.getMainLooper()) {
+			throw new IllegalStateException("DialogFuture.get() would block the dialog on the UI thread");
+		}
+	}
+
+	/**
+	 * Creates and shows the dialog on the UI thread, unless the future was canceled first.
+	 * If that throws, the future completes with the exception.
+	 */
+	void show(final EasyDialog.Builder builder) {
+		Runnable show = new Runnable() {
+
+			@Override
+			public void run() {
+				synchronized (DialogFuture.this) {
+					if (mDone) {
+						return;
+					}
+				}
+				try {
+					EasyDialog dialog = builder.create();
+					synchronized (DialogFuture.this) {
+						if (mDone) {
+							// Canceled while the dialog was built
+							return;
+						}
+						mDialog = dialog;
+					}
+					dialog.setResultFuture(DialogFuture.this);
+					dialog.show();
+				} catch (RuntimeException e) {
+					// For example a BadTokenException if the Activity was destroyed
+					Log.w(TAG, "Could not show dialog", e);
+					fail(e);
+				}
+			}
+		};
+		if (Looper.myLooper() == Looper.getMainLooper()) {
+			show.run();
+		} else {
+			mHandler.post(show);
+		}
+	}
+
+	/**
+	 * Called on the UI thread with the dialog's result, or with <code>null</code> if it closed without one.
+	 */
+	synchronized void complete(DialogResult result) {
+		if (mDone) {
+			return;
+		}
+		mDone = true;
+		mCancelled = result == null;
+		mResult = result;
+		mDialog = null;
+		notifyAll();
+	}
+
+	private synchronized void fail(Throwable failure) {
+		if (mDone) {
+			return;
+		}
+		mDone = true;
+		mFailure = failure;
+		mDialog = null;
+		notifyAll();
+	}
+}
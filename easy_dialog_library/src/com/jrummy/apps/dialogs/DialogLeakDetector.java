@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+/**
+ * A debug tool that reports {@link EasyDialog}s that are still reachable after their Activity was destroyed.
+ * <br><br>
+ * A dialog holds its Activity, its Builder and every list item and icon. A dialog kept by a thread, a task
+ * or a static field after its Activity is destroyed therefore leaks all of them. Install the detector in a
+ * debug build, for example from <code>Application.onCreate</code>:
+ * <pre>
+ * if (BuildConfig.DEBUG) {
+ *     DialogLeakDetector.install(this, null);
+ * }
+ * </pre>
+ * Every dialog that is shown is watched with a weak reference. A few seconds after its Activity is destroyed
+ * the detector runs the garbage collector on a background thread, and reports the dialogs that are still
+ * reachable to the {@link Listener}. The default listener logs a warning. Forcing garbage collections is
+ * slow, so don't install the detector in release builds. The detector does nothing before Android 4.0.
+ *
+ * @see EasyDialog.Builder#setReleaseOnDismiss(boolean)
+ */
+public final class DialogLeakDetector {
+
+	private static final String TAG = "DialogLeakDetector";
+
+	/** Time from an Activity's destruction to the check for leaked dialogs */
+	private static final long CHECK_DELAY_MILLIS = 5000;
+
+	/**
+	 * Receives the leaked dialogs. Called on the UI thread.
+	 */
+	public interface Listener {
+
+		/**
+		 * @param dialog       The dialog that is still reachable. Don't keep a reference to it.
+		 * @param activityName The class name of the destroyed Activity
+		 */
+		void onDialogLeaked(EasyDialog dialog, String activityName);
+	}
+
+	private static final Listener LOG_LISTENER = new Listener() {
+
+		@Override
+		public void onDialogLeaked(EasyDialog dialog, String activityName) {
+			Log.w(TAG, "EasyDialog with tag " + dialog.getBuilder().getTag() + " is still reachable after "
+					+ activityName + " was destroyed");
+		}
+	};
+
+	// Only used on the UI thread
+	private static DialogLeakDetector sInstance;
+
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+	private final List<Watched> mWatched = new ArrayList<Watched>();
+	private Listener mListener;
+
+	private DialogLeakDetector(Listener listener) {
+		mListener = listener;
+	}
+
+	/**
+	 * Starts watching the dialogs of the application's Activities. Must be called on the UI thread.
+	 *
+	 * @param application The application
+	 * @param listener    The listener for leaked dialogs, or <code>null</code> to log them.
+	 * @return <code>false</code> if the detector isn't supported on this release.
+	 */
+	public static boolean install(Application application, Listener listener) {
+		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+			return false;
+		}
+		if (listener == null) {
+			listener = LOG_LISTENER;
+		}
+		if (sInstance != null) {
+			sInstance.mListener = listener;
+			return true;
+		}
+		sInstance = new DialogLeakDetector(listener);
+		application.registerActivityLifecycleCallbacks(sInstance.mLifecycleCallbacks);
+		return true;
+	}
+
+	/**
+	 * @return <code>true</code> if {@link #install(Application, Listener)} was called.
+	 */
+	public static boolean isInstalled() {
+		return sInstance != null;
+	}
+
+	/**
+	 * Called by a dialog when it is shown.
+	 */
+	static void watch(EasyDialog dialog) {
+		if (sInstance != null) {
+			sInstance.add(dialog);
+		}
+	}
+
+	private void add(EasyDialog dialog) {
+		Activity activity = getActivity(dialog.getContext());
+		if (activity == null) {
+			return;
+		}
+		for (int i = mWatched.size() - 1; i >= 0; i--) {
+			Watched watched = mWatched.get(i);
+			EasyDialog watchedDialog = watched.mDialog.get();
+			if (watchedDialog == dialog) {
+				return;
+			} else if (watchedDialog == null) {
+				mWatched.remove(i);
+			}
+		}
+		mWatched.add(new Watched(dialog, activity));
+	}
+
+	private void onActivityDestroyed(Activity activity) {
+		final List<Watched> destroyed = new ArrayList<Watched>();
+		for (int i = mWatched.size() - 1; i >= 0; i--) {
+			Watched watched = mWatched.get(i);
+			Activity watchedActivity = watched.mActivity.get();
+			if (watchedActivity == activity || watchedActivity == null) {
+				mWatched.remove(i);
+				destroyed.add(watched);
+			}
+		}
+		if (destroyed.isEmpty()) {
+			return;
+		}
+		mHandler.postDelayed(new Runnable() {
+
+			@Override
+			public void run() {
+				DialogExecutors.getBackgroundExecutor().execute(new Runnable() {
+
+					@Override
+					public void run() {
+						collectGarbage();
+						mHandler.post(new Runnable() {
+
+							@Override
+							public void run() {
+								report(destroyed);
+							}
+						});
+					}
+				});
+			}
+		}, CHECK_DELAY_MILLIS);
+	}
+
+	private void report(List<Watched> destroyed) {
+		for (Watched watched : destroyed) {
+			EasyDialog dialog = watched.mDialog.get();
+			if (dialog != null) {
+				mListener.onDialogLeaked(dialog, watched.mActivityName);
+			}
+		}
+	}
+
+	private static void collectGarbage() {
+		// System.gc() is only a hint, so ask twice and let finalizers run in between
+		Runtime.getRuntime().gc();
+		try {
+			Thread.sleep(100);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		System.runFinalization();
+		Runtime.getRuntime().gc();
+	}
+
+	private static Activity getActivity(Context context) {
+		while (context instanceof ContextWrapper) {
+			if (context instanceof Activity) {
+				return (Activity) context;
+			}
+			context = ((ContextWrapper) context).getBaseContext();
+		}
+		return null;
+	}
+
+	// Not implemented by the detector itself, so the class loads on releases without lifecycle callbacks
+	private final Application.ActivityLifecycleCallbacks mLifecycleCallbacks = new Application.ActivityLifecycleCallbacks() {
+
+		@Override
+		public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+		}
+
+		@Override
+		public void onActivityStarted(Activity activity) {
+		}
+
+		@Override
+		public void onActivityResumed(Activity activity) {
+		}
+
+		@Override
+		public void onActivityPaused(Activity activity) {
+		}
+
+		@Override
+		public void onActivityStopped(Activity activity) {
+		}
+
+		@Override
+		public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+		}
+
+		@Override
+		public void onActivityDestroyed(Activity activity) {
+			DialogLeakDetector.this.onActivityDestroyed(activity);
+		}
+	};
+
+	private static final class Watched {
+
+		final WeakReference<EasyDialog> mDialog;
+		final WeakReference<Activity> mActivity;
+		final String mActivityName;
+
+		Watched(EasyDialog dialog, Activity activity) {
+			mDialog = new WeakReference<EasyDialog>(dialog);
+			mActivity = new WeakReference<Activity>(activity);
+			mActivityName = activity.getClass().getName();
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+/**
+ * Timings of the work done to open an {@link EasyDialog}.
+ * <br><br>
+ * Register a {@link Listener} for all dialogs with {@link #setGlobalListener(Listener)}, or for the
+ * dialogs of one Builder with {@link EasyDialog.Builder#setMetricsListener(Listener)}. The Builder's
+ * listener is used instead of the global one. Timings are passed as primitive values, and nothing is
+ * measured or allocated when no listener is registered.
+ */
+public final class DialogMetrics {
+
+	/** Inflating the dialog's layout */
+	public static final int PHASE_SET_CONTENT_VIEW = 0;
+	/** Finding the dialog's views */
+	public static final int PHASE_FIND_VIEWS = 1;
+	/** Applying the Builder's custom fonts */
+	public static final int PHASE_SET_CUSTOM_FONTS = 2;
+	/** Setting up the title */
+	public static final int PHASE_SET_TITLE_VIEW = 3;
+	/** Setting up the message, progress, WebView and list. Includes {@link #PHASE_SET_ADAPTER}. */
+	public static final int PHASE_SET_DIALOG_VIEW = 4;
+	/** Creating the list adapter and setting it on the ListView or GridView */
+	public static final int PHASE_SET_ADAPTER = 5;
+	/** Setting up the buttons */
+	public static final int PHASE_SET_BUTTON_VIEW = 6;
+	/** All of {@link EasyDialog#build(EasyDialog.Builder)} */
+	public static final int PHASE_BUILD = 7;
+
+	private static final String[] PHASE_NAMES = {
+		"setContentView", "findViews", "setCustomFonts", "setTitleView",
+		"setDialogView", "setAdapter", "setButtonView", "build"
+	};
+
+	/**
+	 * Receives the timings of a dialog. Called on the UI thread.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called after each phase of {@link EasyDialog#build(EasyDialog.Builder)}.
+		 *
+		 * @param dialog        The dialog being built
+		 * @param phase         One of the <code>PHASE_</code> constants
+		 * @param durationNanos The time the phase took in nanoseconds
+		 */
+		void onBuildPhase(EasyDialog dialog, int phase, long durationNanos);
+
+		/**
+		 * Called before the first frame of the dialog is drawn after {@link EasyDialog#show()}.
+		 *
+		 * @param dialog        The dialog being shown
+		 * @param durationNanos The time from the call to <code>show()</code> in nanoseconds
+		 */
+		void onFirstDraw(EasyDialog dialog, long durationNanos);
+	}
+
+	private static volatile Listener sGlobalListener;
+
+	private DialogMetrics() {
+	}
+
+	/**
+	 * Sets the listener for dialogs whose Builder has no listener.
+	 *
+	 * @param listener The listener, or <code>null</code> to stop measuring.
+	 */
+	public static void setGlobalListener(Listener listener) {
+		sGlobalListener = listener;
+	}
+
+	/**
+	 * @return The listener set with {@link #setGlobalListener(Listener)}.
+	 */
+	public static Listener getGlobalListener() {
+		return sGlobalListener;
+	}
+
+	/**
+	 * @param phase One of the <code>PHASE_</code> constants
+	 * @return A short name for the phase, for example to name a histogram.
+	 */
+	public static String getPhaseName(int phase) {
+		return PHASE_NAMES[phase];
+	}
+
+	static Listener getListener(EasyDialog.Builder builder) {
+		return builder.mMetricsListener != null ? builder.mMetricsListener : sGlobalListener;
+	}
+}
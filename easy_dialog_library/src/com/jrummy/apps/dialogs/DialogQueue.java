@@ -0,0 +1,324 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.DialogInterface;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+/**
+ * Shows the dialogs submitted from any thread one at a time, by priority.
+ * <br><br>
+ * Submitted Builders wait in the queue until no dialog of the queue is showing. The Builder with the highest
+ * priority is shown next, and Builders with the same priority are shown in the order they were submitted.
+ * Builders with a tag (see {@link EasyDialog.Builder#setTag(Object)}) are coalesced: a Builder replaces a queued
+ * Builder with an equal tag and keeps its place, and if the dialog with that tag is already showing it is
+ * rebuilt from the new Builder. A burst of updates from a background task therefore shows one dialog.
+ * <br><br>
+ * Dialogs are created and shown on the UI thread. Builders whose Activity is finishing, or whose dialog can't
+ * be shown, are dropped. The queue sets its own {@link DialogInterface.OnDismissListener} on each Builder, which
+ * calls the Builder's listener. A dialog whose Activity is finishing or destroyed without the dialog being
+ * dismissed no longer blocks the queue.
+ */
+public final class DialogQueue {
+
+	private static final String TAG = "DialogQueue";
+
+	public static final int PRIORITY_LOW = -10;
+	public static final int PRIORITY_NORMAL = 0;
+	public static final int PRIORITY_HIGH = 10;
+
+	private static DialogQueue sInstance;
+
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+	private final Object mLock = new Object();
+
+	// Guarded by mLock
+	private final List<Entry> mPending = new ArrayList<Entry>();
+	private boolean mDrainPosted;
+	private EasyDialog mCurrent;
+	private Object mCurrentTag;
+	private EasyDialog.Builder mCurrentUpdate;
+
+	private DialogQueue() {
+	}
+
+	/**
+	 * @return The process-wide queue.
+	 */
+	public static synchronized DialogQueue getInstance() {
+		if (sInstance == null) {
+			sInstance = new DialogQueue();
+		}
+		return sInstance;
+	}
+
+	/**
+	 * Drops the process-wide queue, so each test starts with an empty one.
+	 */
+	static synchronized void reset() {
+		sInstance = null;
+	}
+
+	/**
+	 * Submits a Builder with {@link #PRIORITY_NORMAL}.
+	 * @see #submit(EasyDialog.Builder, int)
+	 */
+	public void submit(EasyDialog.Builder builder) {
+		submit(builder, PRIORITY_NORMAL);
+	}
+
+	/**
+	 * Queues a Builder to be shown when no other dialog of the queue is showing. Can be called from any thread.
+	 * 
+	 * @param builder  The Builder. Don't change it after it is submitted.
+	 * @param priority The priority, for example {@link #PRIORITY_HIGH}. Higher priorities are shown first.
+	 */
+	public void submit(EasyDialog.Builder builder, int priority) {
+		Object tag = builder.getTag();
+		synchronized (mLock) {
+			if (tag != null && tag.equals(mCurrentTag)) {
+				// Update the dialog that is showing
+				mCurrentUpdate = builder;
+			} else {
+				Entry queued = tag != null ? findEntry(tag) : null;
+				if (queued != null) {
+					queued.mBuilder = builder;
+					queued.mPriority = Math.max(queued.mPriority, priority);
+				} else {
+					mPending.add(new Entry(builder, priority));
+				}
+			}
+			scheduleDrain();
+		}
+	}
+
+	/**
+	 * Removes the queued Builders with an equal tag. A dialog that is showing isn't dismissed.
+	 * 
+	 * @param tag The tag of the Builders
+	 * @return The number of Builders removed.
+	 */
+	public int cancel(Object tag) {
+		int removed = 0;
+		synchronized (mLock) {
+			for (int i = mPending.size() - 1; i >= 0; i--) {
+				if (tag.equals(mPending.get(i).mBuilder.getTag())) {
+					mPending.remove(i);
+					removed++;
+				}
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Removes all the queued Builders. A dialog that is showing isn't dismissed.
+	 */
+	public void clear() {
+		synchronized (mLock) {
+			mPending.clear();
+		}
+	}
+
+	/**
+	 * @return The number of Builders waiting to be shown.
+	 */
+	public int getPendingCount() {
+		synchronized (mLock) {
+			return mPending.size();
+		}
+	}
+
+	/**
+	 * @return The dialog of the queue that is showing, or <code>null</code>.
+	 */
+	public EasyDialog getCurrentDialog() {
+		synchronized (mLock) {
+			return mCurrent;
+		}
+	}
+
+	private Entry findEntry(Object tag) {
+		for (int i = 0, size = mPending.size(); i < size; i++) {
+			Entry entry = mPending.get(i);
+			if (tag.equals(entry.mBuilder.getTag())) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	private Entry pollNext() {
+		int next = -1;
+		for (int i = 0, size = mPending.size(); i < size; i++) {
+			Entry entry = mPending.get(i);
+			if (next == -1 || entry.mPriority > mPending.get(next).mPriority) {
+				next = i;
+			}
+		}
+		// Entries are added in order, so the first of the highest priority was submitted first
+		return next != -1 ? mPending.remove(next) : null;
+	}
+
+	private void scheduleDrain() {
+		if (!mDrainPosted) {
+			mDrainPosted = true;
+			mHandler.post(mDrain);
+		}
+	}
+
+	private final Runnable mDrain = new Runnable() {
+
+		@Override
+		public void run() {
+			EasyDialog current;
+			EasyDialog.Builder update;
+			Entry next = null;
+			synchronized (mLock) {
+				mDrainPosted = false;
+				current = mCurrent;
+				update = mCurrentUpdate;
+				mCurrentUpdate = null;
+				if (current != null && isFinishing(current.getBuilder().mContext)) {
+					// Gone with its Activity, possibly without being dismissed
+					clearCurrent();
+					current = null;
+					update = null;
+				}
+				if (current == null) {
+					next = pollNext();
+				}
+			}
+
+			if (update != null && current != null) {
+				wrapDismissListener(update);
+				current.build(update);
+			}
+
+			while (next != null && !show(next.mBuilder)) {
+				synchronized (mLock) {
+					next = pollNext();
+				}
+			}
+		}
+	};
+
+	/**
+	 * @return <code>false</code> if the Builder's Activity is finishing or the dialog couldn't be shown.
+	 */
+	private boolean show(EasyDialog.Builder builder) {
+		if (isFinishing(builder.mContext)) {
+			return false;
+		}
+		wrapDismissListener(builder);
+		EasyDialog dialog = builder.create();
+		synchronized (mLock) {
+			mCurrent = dialog;
+			mCurrentTag = builder.getTag();
+		}
+		try {
+			dialog.show();
+		} catch (RuntimeException e) {
+			// For example a BadTokenException if the Activity was destroyed
+			Log.w(TAG, "Could not show dialog with tag " + builder.getTag(), e);
+			synchronized (mLock) {
+				if (mCurrent == dialog) {
+					clearCurrent();
+				}
+			}
+			return false;
+		}
+		return true;
+	}
+
+	private static boolean isFinishing(Context context) {
+		return context instanceof Activity && ((Activity) context).isFinishing();
+	}
+
+	/**
+	 * Called by {@link EasyDialog} when its window is removed while it is showing, which happens
+	 * when its Activity is destroyed without the dialog being dismissed. It is also called on some
+	 * API levels when the dialog is dismissed, so it must do nothing for a dialog that isn't current.
+	 */
+	static void onWindowRemoved(EasyDialog dialog) {
+		DialogQueue queue;
+		synchronized (DialogQueue.class) {
+			queue = sInstance;
+		}
+		if (queue != null) {
+			queue.onDismiss(dialog);
+		}
+	}
+
+	// Called with mLock held
+	private void clearCurrent() {
+		mCurrent = null;
+		mCurrentTag = null;
+		mCurrentUpdate = null;
+	}
+
+	private void wrapDismissListener(EasyDialog.Builder builder) {
+		if (!(builder.mOnDismissListener instanceof QueueDismissListener)) {
+			builder.mOnDismissListener = new QueueDismissListener(builder.mOnDismissListener);
+		}
+	}
+
+	private void onDismiss(DialogInterface dialog) {
+		synchronized (mLock) {
+			if (mCurrent != dialog) {
+				return;
+			}
+			clearCurrent();
+			scheduleDrain();
+		}
+	}
+
+	private final class QueueDismissListener implements DialogInterface.OnDismissListener {
+
+		private final DialogInterface.OnDismissListener mListener;
+
+		QueueDismissListener(DialogInterface.OnDismissListener listener) {
+			mListener = listener;
+		}
+
+		@Override
+		public void onDismiss(DialogInterface dialog) {
+			if (mListener != null) {
+				mListener.onDismiss(dialog);
+			}
+			DialogQueue.this.onDismiss(dialog);
+		}
+	}
+
+	private static final class Entry {
+
+		EasyDialog.Builder mBuilder;
+		int mPriority;
+
+		Entry(EasyDialog.Builder builder, int priority) {
+			mBuilder = builder;
+			mPriority = priority;
+		}
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import android.content.DialogInterface;
+
+/**
+ * The choice made in a dialog shown with {@link EasyDialog.Builder#showForResult()}.
+ */
+public final class DialogResult {
+
+	/** The value of {@link #getButton()} when the dialog was closed by clicking a list item */
+	public static final int NO_BUTTON = 0;
+
+	private final int mButton;
+	private final int mPosition;
+	private final int[] mCheckedPositions;
+	private final String mEditText;
+	private final Boolean mCheckBoxChecked;
+
+	DialogResult(int button, int position, int[] checkedPositions, String editText, Boolean checkBoxChecked) {
+		mButton = button;
+		mPosition = position;
+		mCheckedPositions = checkedPositions;
+		mEditText = editText;
+		mCheckBoxChecked = checkBoxChecked;
+	}
+
+	/**
+	 * @return The button that was pressed: {@link DialogInterface#BUTTON_POSITIVE}, 
+	 *         {@link DialogInterface#BUTTON_NEGATIVE}, {@link DialogInterface#BUTTON_NEUTRAL} or {@link #NO_BUTTON}.
+	 */
+	public int getButton() {
+		return mButton;
+	}
+
+	/**
+	 * @return The position of the list item that was clicked, or -1 if a button was pressed.
+	 */
+	public int getPosition() {
+		return mPosition;
+	}
+
+	/**
+	 * @return The positions of the checked list items, in order. Empty if the dialog has no list.
+	 */
+	public int[] getCheckedPositions() {
+		return mCheckedPositions.clone();
+	}
+
+	/**
+	 * @return The text of the EditText, or <code>null</code> if the dialog has no EditText.
+	 */
+	public String getEditText() {
+		return mEditText;
+	}
+
+	/**
+	 * @return If the CheckBox above the buttons is checked, or <code>null</code> if the dialog has no CheckBox.
+	 */
+	public Boolean isCheckBoxChecked() {
+		return mCheckBoxChecked;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("DialogResult{button=").append(mButton)
+				.append(", position=").append(mPosition)
+				.append(", checked=[");
+		for (int i = 0; i < mCheckedPositions.length; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append(mCheckedPositions[i]);
+		}
+		return sb.append("], editText=").append(mEditText)
+				.append(", checkBox=").append(mCheckBoxChecked)
+				.append("}").toString();
+	}
+}
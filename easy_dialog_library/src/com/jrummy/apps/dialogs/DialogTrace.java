@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import java.lang.reflect.Method;
+
+import android.os.Build;
+
+/**
+ * Marks the library's work with <code>android.os.Trace</code> sections, so it shows up in systrace
+ * and Perfetto captures. Tracing is off until {@link #setEnabled(boolean)} is called and does nothing
+ * before Android 4.3.
+ * <br><br>
+ * Sections are named <code>EasyDialog.&lt;method&gt;</code> or <code>EasyDialogListAdapter.&lt;method&gt;</code>,
+ * for example <code>EasyDialog.setDialogView</code> or <code>EasyDialogListAdapter.bindView</code>.
+ * The library is compiled against an older SDK, so the Trace methods are found by reflection once.
+ */
+public final class DialogTrace {
+
+	/** Build phases, indexed by the <code>DialogMetrics.PHASE_</code> constants */
+	static final String[] BUILD_SECTIONS = {
+		"EasyDialog.setContentView", "EasyDialog.findViews", "EasyDialog.setCustomFonts",
+		"EasyDialog.setTitleView", "EasyDialog.setDialogView", "EasyDialog.setAdapter",
+		"EasyDialog.setButtonView", "EasyDialog.build"
+	};
+
+	static final String CREATE_VIEW = "EasyDialogListAdapter.createView";
+	static final String BIND_VIEW = "EasyDialogListAdapter.bindView";
+	static final String ITEM_CLICK = "EasyDialog.onItemClick";
+	static final String UPDATE_PROGRESS = "EasyDialog.updateProgress";
+
+	private static final Object[] NO_ARGS = new Object[0];
+
+	private static volatile boolean sEnabled;
+
+	private static Method sBeginSection;
+	private static Method sEndSection;
+	private static boolean sResolved;
+
+	private DialogTrace() {
+	}
+
+	/**
+	 * Turns the trace sections on or off. Can be called at any time.
+	 *
+	 * @param enabled
+	 */
+	public static void setEnabled(boolean enabled) {
+		if (enabled && !resolve()) {
+			return;
+		}
+		sEnabled = enabled;
+	}
+
+	/**
+	 * @return <code>true</code> if the library's work is traced.
+	 */
+	public static boolean isEnabled() {
+		return sEnabled;
+	}
+
+	/**
+	 * Begins a section if tracing is enabled. Pass the result to {@link #endSection(boolean)}
+	 * on the same thread, so sections stay balanced if tracing is switched while one is open.
+	 *
+	 * @param name One of the section name constants
+	 * @return <code>true</code> if a section was begun.
+	 */
+	static boolean beginSection(String name) {
+		if (!sEnabled) {
+			return false;
+		}
+		invoke(sBeginSection, name);
+		return true;
+	}
+
+	/**
+	 * Ends the section last begun on this thread.
+	 *
+	 * @param begun The result of {@link #beginSection(String)}
+	 */
+	static void endSection(boolean begun) {
+		if (begun) {
+			invoke(sEndSection, NO_ARGS);
+		}
+	}
+
+	private static synchronized boolean resolve() {
+		if (!sResolved) {
+			sResolved = true;
+			if (Build.VERSION.SDK_INT >= 18) {
+				try {
+					Class<?> trace = Class.forName("android.os.Trace");
+					sBeginSection = trace.getMethod("beginSection", String.class);
+					sEndSection = trace.getMethod("endSection");
+				} catch (Exception e) {
+					sBeginSection = null;
+					sEndSection = null;
+				}
+			}
+		}
+		return sBeginSection != null;
+	}
+
+	private static void invoke(Method method, Object... args) {
+		try {
+			method.invoke(null, args);
+		} catch (Exception e) {
+			// Trace can't fail on a supported release
+		}
+	}
+}
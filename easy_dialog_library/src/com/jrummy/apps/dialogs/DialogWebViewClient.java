@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import android.content.ActivityNotFoundException;
+import android.content.Context;
+import android.content.Intent;
+import android.content.res.AssetManager;
+import android.net.Uri;
+import android.provider.Browser;
+import android.webkit.WebResourceResponse;
+import android.webkit.WebView;
+import android.webkit.WebViewClient;
+
+/**
+ * The WebViewClient of WebView dialogs. Serves assets from the {@link WebContentCache}.
+ */
+public class DialogWebViewClient extends WebViewClient {
+
+	private final AssetManager mAssets;
+	private final boolean mOverrideLoading;
+	private final boolean mCacheEnabled;
+
+	/**
+	 * @param context         The dialog's context
+	 * @param overrideLoading Whether or not to load clicked URL's in the dialog.
+	 * @param cacheEnabled    Whether or not to serve content from the {@link WebContentCache}.
+	 */
+	public DialogWebViewClient(Context context, boolean overrideLoading, boolean cacheEnabled) {
+		mAssets = context.getApplicationContext().getAssets();
+		mOverrideLoading = overrideLoading;
+		mCacheEnabled = cacheEnabled;
+	}
+
+	@Override
+	public boolean shouldOverrideUrlLoading(WebView view, String url) {
+		if (mOverrideLoading) {
+			/* On Android 1.1 shouldOverrideUrlLoading() will be called every time the user clicks a link,
+			 * but on Android 1.5 it will be called for every page load, even if it was caused by calling loadUrl()! */
+			if (!url.startsWith("http")) {
+				view.loadUrl(url);
+				return true;
+			}
+			return false;
+		}
+
+		// Same as a WebView without a client: open the link in the browser
+		Context context = view.getContext();
+		Intent intent = new Intent(Intent.ACTION_VIEW, Uri.parse(url));
+		intent.putExtra(Browser.EXTRA_APPLICATION_ID, context.getPackageName());
+		try {
+			context.startActivity(intent);
+			return true;
+		} catch (ActivityNotFoundException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public WebResourceResponse shouldInterceptRequest(WebView view, String url) {
+		if (mCacheEnabled) {
+			WebResourceResponse response = WebContentCache.getInstance().getResponse(mAssets, url);
+			if (response != null) {
+				return response;
+			}
+		}
+		return super.shouldInterceptRequest(view, url);
+	}
+}
@@ -16,9 +16,16 @@
 
 package com.jrummy.apps.dialogs;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
 
 import android.app.Dialog;
 import android.content.Context;
@@ -29,19 +36,25 @@ import android.content.res.TypedArray;
 import android.graphics.Typeface;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
+import android.os.Bundle;
 import android.os.Handler;
+import android.os.Looper;
+import android.text.Spanned;
 import android.text.TextWatcher;
+import android.text.method.LinkMovementMethod;
 import android.util.DisplayMetrics;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.view.Window;
 import android.webkit.WebView;
-import android.webkit.WebViewClient;
+import android.widget.AbsListView;
 import android.widget.AdapterView;
 import android.widget.AdapterView.OnItemClickListener;
 import android.widget.Button;
 import android.widget.CheckBox;
 import android.widget.CompoundButton;
 import android.widget.EditText;
+import android.widget.FrameLayout;
 import android.widget.GridView;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
@@ -95,10 +108,16 @@ public class EasyDialog extends Dialog {
 	/** Much like the Holo theme but with a glowing holo colored border */
 	public static final int THEME_JB = R.style.Theme_Dialog_JB;
 
-	public static final int LIST_STYLE_LISTVIEW = 0x01;
-	public static final int LIST_STYLE_GRIDVIEW = 0x02;
-	public static final int LIST_STYLE_SINGLE_CHOICE = 0x03;
-	public static final int LIST_STYLE_MULTI_CHOICE = 0x04;
+	public static final int LIST_STYLE_LISTVIEW = ListStyle.LISTVIEW;
+	public static final int LIST_STYLE_GRIDVIEW = ListStyle.GRIDVIEW;
+	public static final int LIST_STYLE_SINGLE_CHOICE = ListStyle.SINGLE_CHOICE;
+	public static final int LIST_STYLE_MULTI_CHOICE = ListStyle.MULTI_CHOICE;
+
+	private static final String STATE_CHECKED = "easydialog:checked";
+	private static final String STATE_POSITION = "easydialog:position";
+	private static final String STATE_POSITION_TOP = "easydialog:positionTop";
+	private static final String STATE_FILTER = "easydialog:filter";
+	private static final String STATE_LIST_ITEMS = "easydialog:listItems";
 
 	/** The Builder */
 	private Builder mBuilder;
@@ -109,6 +128,22 @@ public class EasyDialog extends Dialog {
 	/** The ListAdapter for the ListView and GridView */
 	private EasyDialogListAdapter mAdapter;
 
+	/** All the list items while a filter is set. The adapter then holds the items that match. */
+	private List<ListItem> mAllListItems;
+	private String mFilterQuery;
+
+	/** Posts results from background work to the UI thread */
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+	/** The token of the running {@link EasyDialogTask} or null */
+	private CancellationToken mTaskToken;
+
+	/** The token of the running {@link ListItemLoader} or null */
+	private CancellationToken mLoaderToken;
+
+	/** Incremented for each call to {@link #updateListItems(Executor, List)} so stale diffs are dropped */
+	private int mListUpdateGeneration;
+
 	// Title View
 	private RelativeLayout mTitleLayout;
 	private TextView mTitleText;
@@ -130,10 +165,25 @@ public class EasyDialog extends Dialog {
 	private TextView mHorizontalProgressPercentText;
 	private TextView mHorizontalProgressMessageText;
 	private TextView mHorizontalProgressCountText;
+	private FrameLayout mWebViewFrame;
 	private WebView mWebView;
+	private CancellationToken mHtmlToken;
+	/** The HTML being parsed for the message TextView, loaded again if the dialog is shown after being dismissed */
+	private String mPendingHtmlUrl;
+	private DialogMetrics.Listener mMetricsListener;
+	// One bit per open build phase, set if its trace section was begun
+	private int mTraceFlags;
+	private long mShowTime;
+	private ViewTreeObserver.OnPreDrawListener mFirstDrawListener;
+	private FrameMonitor mFrameMonitor;
+	private ListView mMessageList;
+	private LongMessageAdapter mLongMessageAdapter;
+	private boolean mReleased;
+	private DialogFuture mResultFuture;
 	private ListView mListView;
 	private GridView mGridView;
 	private EditText mEditText;
+	private EditTextValidation mEditTextValidation;
 	private CheckBox mCheckBox;
 
 	// Dialog Buttons
@@ -157,29 +207,92 @@ public class EasyDialog extends Dialog {
 	public void build(Builder builder) {
 		// Set the builder
 		mBuilder = builder;
+		builder.prepare();
+		mReleased = false;
+		mHandler.removeCallbacks(mReleaseRunnable);
+		mAllListItems = null;
+		mFilterQuery = null;
+		// Only measure the build when someone is listening
+		mMetricsListener = DialogMetrics.getListener(builder);
+		boolean traced = DialogTrace.beginSection(DialogTrace.BUILD_SECTIONS[DialogMetrics.PHASE_BUILD]);
+		long buildStart = mMetricsListener != null ? System.nanoTime() : 0;
+		// Give back the WebView of the previous content view
+		releaseWebView(false);
+		cancelHtmlMessage();
+		mPendingHtmlUrl = null;
+		if (mLongMessageAdapter != null) {
+			mLongMessageAdapter.close();
+			mLongMessageAdapter = null;
+		}
+		if (mEditTextValidation != null) {
+			mEditTextValidation.cancel();
+			mEditTextValidation = null;
+		}
 		// Set the content view of the dialog
+		long phaseStart = beginPhase(DialogMetrics.PHASE_SET_CONTENT_VIEW);
 		setContentView(R.layout.dialog_main);
+		endPhase(DialogMetrics.PHASE_SET_CONTENT_VIEW, phaseStart);
 		// Find the various views
+		phaseStart = beginPhase(DialogMetrics.PHASE_FIND_VIEWS);
 		findViews();
+		endPhase(DialogMetrics.PHASE_FIND_VIEWS, phaseStart);
 		// Set if the dialog is cancelable
 		setCancelable(builder.mCancelable);
 		setCanceledOnTouchOutside(builder.mCancelableOutsideTouch);
 		// Set various dialog listeners
 		setListeners();
 		// Set any custom fonts
+		phaseStart = beginPhase(DialogMetrics.PHASE_SET_CUSTOM_FONTS);
 		setCustomFonts();
+		endPhase(DialogMetrics.PHASE_SET_CUSTOM_FONTS, phaseStart);
 		// Sets the dialog background
 		setBackgroundFromBuilder();
 		// Set the title view from the builder
+		phaseStart = beginPhase(DialogMetrics.PHASE_SET_TITLE_VIEW);
 		setTitleView();
+		endPhase(DialogMetrics.PHASE_SET_TITLE_VIEW, phaseStart);
 		// Set the main dialog view from the builder
+		phaseStart = beginPhase(DialogMetrics.PHASE_SET_DIALOG_VIEW);
 		setDialogView();
+		endPhase(DialogMetrics.PHASE_SET_DIALOG_VIEW, phaseStart);
 		// Set the EditText view from the builder
 		setEditText();
 		// Set the CheckBox from the builder
 		setCheckBoxView();
 		// Set the positive, negative, and neutral buttons
+		phaseStart = beginPhase(DialogMetrics.PHASE_SET_BUTTON_VIEW);
 		setButtonView();
+		endPhase(DialogMetrics.PHASE_SET_BUTTON_VIEW, phaseStart);
+		if (mMetricsListener != null) {
+			mMetricsListener.onBuildPhase(this, DialogMetrics.PHASE_BUILD, System.nanoTime() - buildStart);
+		}
+		DialogTrace.endSection(traced);
+		// Start background work from the builder if the dialog is already showing
+		if (isShowing()) {
+			startBuilderWork();
+			validateEditText();
+		}
+	}
+
+	/**
+	 * Begins the trace section of a build phase.
+	 * 
+	 * @return The time the phase starts at, or 0 if no one is listening.
+	 */
+	private long beginPhase(int phase) {
+		mTraceFlags = (mTraceFlags << 1) | (DialogTrace.beginSection(DialogTrace.BUILD_SECTIONS[phase]) ? 1 : 0);
+		return mMetricsListener != null ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Ends the trace section of a build phase and reports its time to the metrics listener.
+	 */
+	private void endPhase(int phase, long start) {
+		if (mMetricsListener != null) {
+			mMetricsListener.onBuildPhase(this, phase, System.nanoTime() - start);
+		}
+		DialogTrace.endSection((mTraceFlags & 1) != 0);
+		mTraceFlags >>>= 1;
 	}
 
 	/**
@@ -217,6 +330,342 @@ public class EasyDialog extends Dialog {
 		});
 	}
 
+	@Override
+	protected void onStart() {
+		super.onStart();
+		if (mWebView == null && mBuilder.mWebViewUrl != null && mWebViewFrame.getVisibility() == View.VISIBLE) {
+			// Shown again after being dismissed
+			setWebViewFromBuilder();
+		}
+		if (mPendingHtmlUrl != null && mHtmlToken == null) {
+			// Parsing was stopped when the dialog was dismissed
+			loadHtmlMessage(mPendingHtmlUrl);
+		}
+		if (mLongMessageAdapter != null && mBuilder.mLongMessageFile != null
+				&& !mLongMessageAdapter.isLoaded() && !mLongMessageAdapter.isLoading()) {
+			// Indexing was stopped when the dialog was dismissed
+			mLongMessageAdapter.load(DialogExecutors.getBackgroundExecutor(), mBuilder.mLongMessageFile);
+		}
+		startFrameMonitor();
+		startBuilderWork();
+		validateEditText();
+		DialogLeakDetector.watch(this);
+	}
+
+	@Override
+	protected void onStop() {
+		super.onStop();
+		if (mFrameMonitor != null) {
+			mFrameMonitor.stop();
+			mFrameMonitor = null;
+		}
+		if (mResultFuture != null) {
+			// Closed without a button or item click
+			mResultFuture.complete(null);
+			mResultFuture = null;
+		}
+		cancelTask();
+		cancelListItemLoader();
+		cancelHtmlMessage();
+		if (mEditTextValidation != null) {
+			mEditTextValidation.cancel();
+		}
+		releaseWebView(mBuilder.mReleaseWebViewOnDismiss);
+		if (mAdapter != null) {
+			mAdapter.cancelTextPrecompute();
+		}
+		if (mLongMessageAdapter != null) {
+			mLongMessageAdapter.close();
+		}
+		if (mBuilder.mReleaseOnDismiss) {
+			// Posted, so the dismiss listener is still called
+			mHandler.post(mReleaseRunnable);
+		}
+	}
+
+	@Override
+	public void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		if (isShowing()) {
+			// The window was removed without dismiss(), for example when the Activity was destroyed. Where
+			// dismiss() removes the window with removeViewImmediate() this also runs on a normal dismiss,
+			// before the dismiss listener; the queue ignores the second call for a dialog that isn't current.
+			DialogQueue.onWindowRemoved(this);
+		}
+	}
+
+	private final Runnable mReleaseRunnable = new Runnable() {
+
+		@Override
+		public void run() {
+			release();
+		}
+	};
+
+	/**
+	 * Drops the references to the list items, icons, WebView and listeners after the dialog is dismissed.
+	 * 
+	 * @see Builder#setReleaseOnDismiss(boolean)
+	 */
+	private void release() {
+		if (mReleased || isShowing()) {
+			return;
+		}
+		mReleased = true;
+		releaseWebView(true);
+		if (mAdapter != null) {
+			mAdapter.cancelTextPrecompute();
+			mAdapter = null;
+		}
+		mAllListItems = null;
+		mListView.setAdapter(null);
+		mGridView.setAdapter(null);
+		if (mLongMessageAdapter != null) {
+			mLongMessageAdapter.close();
+			mLongMessageAdapter = null;
+			mMessageList.setAdapter(null);
+		}
+		mTitleIcon.setImageDrawable(null);
+		mTitleCheckBox.setOnCheckedChangeListener(null);
+		mCheckBox.setOnCheckedChangeListener(null);
+		if (mBuilder.mTextWatcher != null) {
+			mEditText.removeTextChangedListener(mBuilder.mTextWatcher);
+		}
+		if (mEditTextValidation != null) {
+			mEditText.removeTextChangedListener(mEditTextValidation);
+			mEditTextValidation = null;
+		}
+		mNegativeButton.setOnClickListener(null);
+		mNeutralButton.setOnClickListener(null);
+		mPositiveButton.setOnClickListener(null);
+		setOnCancelListener(null);
+		setOnKeyListener(null);
+		setOnDismissListener(null);
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.FROYO) {
+			setOnShowListener(null);
+		}
+		mMetricsListener = null;
+		mBuilder.release();
+	}
+
+	@Override
+	public void show() {
+		if (mReleased) {
+			throw new IllegalStateException("EasyDialog was released when it was dismissed");
+		}
+		if (mMetricsListener != null && !isShowing()) {
+			mShowTime = System.nanoTime();
+			watchFirstDraw();
+		}
+		super.show();
+		// Resumes the WebView after hide()
+		if (mWebView != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+			mWebView.onResume();
+		}
+	}
+
+	@Override
+	public void hide() {
+		super.hide();
+		// Stops JavaScript, animations and plugins while hidden
+		if (mWebView != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+			mWebView.onPause();
+		}
+	}
+
+	/**
+	 * Saves the state of the list in a compact form: the checked items as a bitset, the scroll position and
+	 * the filter query. If {@link Builder#setSaveListItems(boolean)} is set, the list items are written to a
+	 * cache file and only its path is saved, so large lists stay within the Binder transaction limit.
+	 * <br><br>
+	 * Call it from <code>Activity.onSaveInstanceState</code> and pass the Bundle to
+	 * {@link #onRestoreInstanceState(Bundle)} of the dialog that is built again.
+	 * 
+	 * @see #restoreListItems(Bundle)
+	 */
+	@Override
+	public Bundle onSaveInstanceState() {
+		Bundle state = super.onSaveInstanceState();
+		List<ListItem> items = getListItems();
+		if (items == null) {
+			return state;
+		}
+		state.putLongArray(STATE_CHECKED, ListItems.getCheckedBits(items));
+		AbsListView listView = getCurrentListView();
+		View first = listView.getChildAt(0);
+		state.putInt(STATE_POSITION, listView.getFirstVisiblePosition());
+		state.putInt(STATE_POSITION_TOP, first != null ? first.getTop() : 0);
+		if (mFilterQuery != null) {
+			state.putString(STATE_FILTER, mFilterQuery);
+		}
+		if (mBuilder.mSaveListItems) {
+			state.putString(STATE_LIST_ITEMS, ListItemSnapshot.save(getContext(), items));
+		}
+		return state;
+	}
+
+	/**
+	 * Restores the checked items, filter query and scroll position saved by {@link #onSaveInstanceState()}.
+	 * The list items must be set first, in the same order, for example with the items from
+	 * {@link #restoreListItems(Bundle)}.
+	 */
+	@Override
+	public void onRestoreInstanceState(Bundle savedInstanceState) {
+		super.onRestoreInstanceState(savedInstanceState);
+		List<ListItem> items = getListItems();
+		if (items == null) {
+			return;
+		}
+		long[] checked = savedInstanceState.getLongArray(STATE_CHECKED);
+		String filter = savedInstanceState.getString(STATE_FILTER);
+		if (checked != null) {
+			ListItems.setCheckedBits(items, checked);
+			if (filter == null && mAdapter != null) {
+				// The items were changed in place, a filter below notifies the adapter itself
+				mAdapter.notifyDataSetChanged();
+			}
+		}
+		setFilterQuery(filter);
+
+		int position = savedInstanceState.getInt(STATE_POSITION);
+		AbsListView listView = getCurrentListView();
+		if (listView == null) {
+			return;
+		}
+		if (listView instanceof ListView) {
+			((ListView) listView).setSelectionFromTop(position, savedInstanceState.getInt(STATE_POSITION_TOP));
+		} else {
+			listView.setSelection(position);
+		}
+	}
+
+	/**
+	 * Reads the list items saved by {@link #onSaveInstanceState()} when {@link Builder#setSaveListItems(boolean)}
+	 * is set, so the dialog can be built again without loading its items. The text, colors and check state are
+	 * restored. Icons and data aren't saved. The items may be read from a file, so call it off the UI thread 
+	 * for large lists.
+	 * 
+	 * @param savedInstanceState The state saved by {@link #onSaveInstanceState()}
+	 * @return The list items, or <code>null</code> if they weren't saved or the file is gone.
+	 */
+	public static List<ListItem> restoreListItems(Bundle savedInstanceState) {
+		String path = savedInstanceState.getString(STATE_LIST_ITEMS);
+		return path != null ? ListItemSnapshot.restore(path) : null;
+	}
+
+	/**
+	 * Starts watching frames if a {@link FrameMonitor.Listener} is registered.
+	 */
+	private void startFrameMonitor() {
+		FrameMonitor.Listener listener = FrameMonitor.getListener(mBuilder);
+		if (listener == null || mFrameMonitor != null) {
+			return;
+		}
+		float refreshRate = getWindow().getWindowManager().getDefaultDisplay().getRefreshRate();
+		mFrameMonitor = new FrameMonitor(this, listener, getDialogKind(), mBuilder.mTag, refreshRate);
+		mFrameMonitor.start();
+	}
+
+	/**
+	 * @return The {@link FrameMonitor} kind of the dialog's main content.
+	 */
+	private int getDialogKind() {
+		if (mBuilder.mMainDialogView != null) {
+			return FrameMonitor.KIND_CUSTOM;
+		} else if (mBuilder.mListItems != null) {
+			return mBuilder.mListStyle == LIST_STYLE_GRIDVIEW ? FrameMonitor.KIND_GRID : FrameMonitor.KIND_LIST;
+		} else if (mBuilder.mWebViewUrl != null) {
+			return FrameMonitor.KIND_WEB;
+		} else if (mBuilder.mShowHorzProgress || mBuilder.mShowIndeterminateProgress) {
+			return FrameMonitor.KIND_PROGRESS;
+		}
+		return FrameMonitor.KIND_MESSAGE;
+	}
+
+	/**
+	 * Reports the time from {@link #show()} to the first frame to the metrics listener.
+	 */
+	private void watchFirstDraw() {
+		final ViewTreeObserver observer = getWindow().getDecorView().getViewTreeObserver();
+		if (mFirstDrawListener != null) {
+			// Shown again before the first frame was drawn
+			observer.removeOnPreDrawListener(mFirstDrawListener);
+		}
+		mFirstDrawListener = new ViewTreeObserver.OnPreDrawListener() {
+
+			@Override
+			public boolean onPreDraw() {
+				ViewTreeObserver observer = getWindow().getDecorView().getViewTreeObserver();
+				if (observer.isAlive()) {
+					observer.removeOnPreDrawListener(this);
+				}
+				mFirstDrawListener = null;
+				if (mMetricsListener != null) {
+					mMetricsListener.onFirstDraw(EasyDialog.this, System.nanoTime() - mShowTime);
+				}
+				return true;
+			}
+		};
+		observer.addOnPreDrawListener(mFirstDrawListener);
+	}
+
+	/**
+	 * Starts the Builder's task and list item loader. Each is only started once.
+	 */
+	private void startBuilderWork() {
+		if (mBuilder.mTask != null && mBuilder.mTaskExecutor != null) {
+			EasyDialogTask<?> task = mBuilder.mTask;
+			mBuilder.mTask = null;
+			execute(mBuilder.mTaskExecutor, task);
+		}
+
+		if (mBuilder.mListItemLoader != null && mAdapter != null) {
+			ListItemLoader<?> loader = mBuilder.mListItemLoader;
+			mBuilder.mListItemLoader = null;
+			cancelListItemLoader();
+			mLoaderToken = loader.load(this, mHandler);
+		}
+	}
+
+	/**
+	 * Checks the EditText with the Builder's {@link TextValidator} right away.
+	 */
+	private void validateEditText() {
+		if (mEditTextValidation != null) {
+			mEditTextValidation.schedule(0);
+		}
+	}
+
+	/**
+	 * Stops the running {@link ListItemLoader}, if any. Items already loaded stay in the list.
+	 */
+	public void cancelListItemLoader() {
+		if (mLoaderToken != null) {
+			mLoaderToken.cancel();
+			mLoaderToken = null;
+		}
+	}
+
+	/**
+	 * Streams the Builder's long message into the paragraph list.
+	 * A Reader can only be read once, so it is kept by the adapter.
+	 */
+	private void setLongMessage() {
+		mLongMessageAdapter = new LongMessageAdapter(getContext(), mHandler);
+		if (mBuilder.mMainFont != null) {
+			mLongMessageAdapter.setTypeface(mBuilder.mMainFont);
+		}
+		mMessageList.setAdapter(mLongMessageAdapter);
+		mMessageList.setVisibility(View.VISIBLE);
+		if (mBuilder.mLongMessageFile != null) {
+			mLongMessageAdapter.load(DialogExecutors.getBackgroundExecutor(), mBuilder.mLongMessageFile);
+		} else {
+			Reader reader = mBuilder.mLongMessageReader;
+			mBuilder.mLongMessageReader = null;
+			mLongMessageAdapter.load(DialogExecutors.getBackgroundExecutor(), reader);
+		}
+	}
+
 	/**
 	 * Finds all the views in the dialog
 	 */
@@ -241,7 +690,8 @@ public class EasyDialog extends Dialog {
 		mHorizontalProgressPercentText = (TextView) findViewById(R.id.horizontal_progress_percent);
 		mHorizontalProgressMessageText = (TextView) findViewById(R.id.horizontal_progress_message);
 		mHorizontalProgressCountText = (TextView) findViewById(R.id.horizontal_progress_count);
-		mWebView = (WebView) findViewById(R.id.dialog_webview);
+		mWebViewFrame = (FrameLayout) findViewById(R.id.dialog_webview_frame);
+		mMessageList = (ListView) findViewById(R.id.dialog_message_list);
 		mListView = (ListView) findViewById(R.id.dialog_listview);
 		mGridView = (GridView) findViewById(R.id.dialog_gridview);
 		mEditText = (EditText) findViewById(R.id.dialog_edittext);
@@ -336,6 +786,10 @@ public class EasyDialog extends Dialog {
 				setDialogMessageVisibility(View.GONE);
 			}
 
+			if (mBuilder.mLongMessageReader != null || mBuilder.mLongMessageFile != null) {
+				setLongMessage();
+			}
+
 			if (mBuilder.mShowIndeterminateProgress) {
 				setIndeterminateProgressVisibility(View.VISIBLE);
 				mIndeterminateProgressText.setText(mBuilder.mProgressMessage);
@@ -366,16 +820,20 @@ public class EasyDialog extends Dialog {
 			}
 
 			if (mBuilder.mWebViewUrl != null) {
-				setWebViewVisibility(View.VISIBLE);
-				loadUrl(mBuilder.mWebViewUrl, mBuilder.mOverrideLoadingOnWebView);
-				if (mBuilder.mWebViewBackgroundColor != -1) {
-					setWebViewBackgroundColor(mBuilder.mWebViewBackgroundColor);
+				// HtmlText keeps its parsed text in an LruCache, added in Honeycomb MR1
+				if (mBuilder.mLightweightHtml && Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB_MR1
+						&& HtmlText.canLoad(mBuilder.mWebViewUrl)) {
+					setWebViewVisibility(View.GONE);
+					loadHtmlMessage(mBuilder.mWebViewUrl);
+				} else {
+					setWebViewFromBuilder();
 				}
 			} else {
 				setWebViewVisibility(View.GONE);
 			}
 
 			if (mBuilder.mListItems != null) {
+				long adapterStart = beginPhase(DialogMetrics.PHASE_SET_ADAPTER);
 				mAdapter = new EasyDialogListAdapter(mBuilder);
 				mGridView.setFastScrollEnabled(mBuilder.mSetFastScrollEnabled);
 				mListView.setFastScrollEnabled(mBuilder.mSetFastScrollEnabled);
@@ -390,6 +848,7 @@ public class EasyDialog extends Dialog {
 					setGridViewAdapter(mAdapter);
 					setGridViewItemClickListener(mDefaultListItemClickListener);
 				}
+				endPhase(DialogMetrics.PHASE_SET_ADAPTER, adapterStart);
 			}
 		}
 	}
@@ -402,6 +861,11 @@ public class EasyDialog extends Dialog {
 			if (mBuilder.mTextWatcher != null) {
 				mEditText.addTextChangedListener(mBuilder.mTextWatcher);
 			}
+			if (mBuilder.mTextValidator != null) {
+				mEditTextValidation = new EditTextValidation(this, mEditText, mHandler, 
+						mBuilder.mTextValidatorExecutor, mBuilder.mTextValidatorDelayMillis, mBuilder.mTextValidator);
+				mEditText.addTextChangedListener(mEditTextValidation);
+			}
 		} else {
 			mEditText.setVisibility(View.GONE);
 		}
@@ -716,9 +1180,10 @@ public class EasyDialog extends Dialog {
 	 * @param progress The current progress of the progress bar.
 	 */
 	public void updateProgress(int max, int progress) {
-		int percent = (int) Math.floor((((double)progress / max) * 100));
-		mHorizontalProgressCountText.setText(progress + "/" + max);
-		mHorizontalProgressPercentText.setText(percent + "%");
+		boolean traced = DialogTrace.beginSection(DialogTrace.UPDATE_PROGRESS);
+		mHorizontalProgressCountText.setText(ProgressFormat.formatCount(progress, max));
+		mHorizontalProgressPercentText.setText(ProgressFormat.formatPercent(progress, max));
+		DialogTrace.endSection(traced);
 	}
 
 	/**
@@ -808,6 +1273,82 @@ public class EasyDialog extends Dialog {
 		updateProgressMessage(message);
 	}
 
+	/**
+	 * Runs an {@link EasyDialogTask} on the executor while this dialog is showing.
+	 * <br><br>
+	 * Pressing the negative button or dismissing the dialog cancels the task's {@link CancellationToken}.
+	 * Progress reported from the task is applied to the horizontal progress bar. When the task 
+	 * completes the dialog is built from the {@link Builder} returned by the task or dismissed.
+	 * 
+	 * @param executor The {@link Executor} to run the background work on.
+	 * @param task     The task to run.
+	 * @return The {@link CancellationToken} for the task.
+	 */
+	public <Result> CancellationToken execute(Executor executor, final EasyDialogTask<Result> task) {
+		cancelTask();
+		final CancellationToken token = new CancellationToken();
+		final ProgressReporter reporter = new ProgressReporter(this, mHandler, 
+				mBuilder.mHorzMaxProgress, mBuilder.mHorzMinProgress);
+		mTaskToken = token;
+
+		executor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				Result result = null;
+				Throwable error = null;
+				try {
+					result = task.doInBackground(token, reporter);
+				} catch (CancellationException e) {
+					token.cancel();
+				} catch (Throwable e) {
+					error = e;
+				}
+
+				final Result taskResult = result;
+				final Throwable taskError = error;
+				mHandler.post(new Runnable() {
+
+					@Override
+					public void run() {
+						onTaskFinished(task, token, taskResult, taskError);
+					}
+				});
+			}
+		});
+
+		return token;
+	}
+
+	/**
+	 * Cancels the running {@link EasyDialogTask}, if any.
+	 */
+	public void cancelTask() {
+		if (mTaskToken != null) {
+			mTaskToken.cancel();
+			mTaskToken = null;
+		}
+	}
+
+	private <Result> void onTaskFinished(EasyDialogTask<Result> task, CancellationToken token, 
+			Result result, Throwable error) {
+		if (mTaskToken == token) {
+			mTaskToken = null;
+		}
+
+		if (token.isCancelled()) {
+			task.onCancelled(this);
+			return;
+		}
+
+		Builder builder = error != null ? task.onError(this, error) : task.onSuccess(this, result);
+		if (builder != null) {
+			build(builder);
+		} else {
+			dismiss();
+		}
+	}
+
 	/**
 	 * Set the visibility of the WebView
 	 * 
@@ -817,7 +1358,97 @@ public class EasyDialog extends Dialog {
 	 * @param visibility
 	 */
 	public void setWebViewVisibility(int visibility) {
-		mWebView.setVisibility(visibility);
+		mWebViewFrame.setVisibility(visibility);
+	}
+
+	private void setWebViewFromBuilder() {
+		setWebViewVisibility(View.VISIBLE);
+		if (mBuilder.mWebViewBackgroundColor != -1) {
+			setWebViewBackgroundColor(mBuilder.mWebViewBackgroundColor);
+		}
+		loadUrl(mBuilder.mWebViewUrl, mBuilder.mOverrideLoadingOnWebView);
+	}
+
+	/**
+	 * Parses the HTML on a background thread and shows it in the message TextView,
+	 * or loads it in the WebView if it uses tags a TextView can't show.
+	 */
+	private void loadHtmlMessage(final String url) {
+		Spanned cached = HtmlText.getCached(url);
+		if (cached != null) {
+			showHtmlMessage(cached);
+			return;
+		}
+
+		final CancellationToken token = new CancellationToken();
+		final AssetManager assets = getContext().getAssets();
+		mHtmlToken = token;
+		mPendingHtmlUrl = url;
+		DialogExecutors.getBackgroundExecutor().execute(new Runnable() {
+
+			@Override
+			public void run() {
+				Spanned text;
+				try {
+					text = HtmlText.load(assets, url);
+				} catch (IOException e) {
+					text = null;
+				} catch (RuntimeException e) {
+					// Shown in the WebView instead
+					text = null;
+				}
+
+				final Spanned result = text;
+				mHandler.post(new Runnable() {
+
+					@Override
+					public void run() {
+						if (!token.isCancelled()) {
+							mHtmlToken = null;
+							mPendingHtmlUrl = null;
+							showHtmlMessage(result);
+						}
+					}
+				});
+			}
+		});
+	}
+
+	private void cancelHtmlMessage() {
+		if (mHtmlToken != null) {
+			mHtmlToken.cancel();
+			mHtmlToken = null;
+		}
+	}
+
+	private void showHtmlMessage(Spanned text) {
+		if (text == null || !HtmlText.isSupported(text)) {
+			setWebViewFromBuilder();
+			return;
+		}
+		setDialogMessageVisibility(View.VISIBLE);
+		mMessageText.setText(text);
+		mMessageText.setMovementMethod(LinkMovementMethod.getInstance());
+	}
+
+	/**
+	 * Stops the WebView and returns it to the {@link WebViewPool} or destroys it.
+	 *
+	 * @param destroy <code>true</code> to destroy the WebView instead of pooling it.
+	 */
+	private void releaseWebView(boolean destroy) {
+		if (mWebView == null) {
+			return;
+		}
+		WebView webView = mWebView;
+		mWebView = null;
+		webView.stopLoading();
+		if (destroy) {
+			mWebViewFrame.removeView(webView);
+			webView.destroy();
+		} else {
+			WebViewPool.recycle(webView);
+		}
 	}
 
 	/**
@@ -835,24 +1466,18 @@ public class EasyDialog extends Dialog {
 	 * @param overrideLoading Whether or not to load clicked URL's in the dialog.
 	 */
 	public void loadUrl(String url, boolean overrideLoading) {
-		if (overrideLoading) {
-			mWebView.setWebViewClient(new WebViewClient() {  
-				/* On Android 1.1 shouldOverrideUrlLoading() will be called every time the user clicks a link, 
-				 * but on Android 1.5 it will be called for every page load, even if it was caused by calling loadUrl()! */  
-				@Override  
-				public boolean shouldOverrideUrlLoading(WebView view, String url) {  
-					if (!url.startsWith("http")) {  
-						view.loadUrl(url);  
-						return true;  
-					}				  
-					return false;  
-				}  
-			}); 
-		}				
+		WebView webView = getWebView();
+		// shouldInterceptRequest and LruCache were added in Honeycomb
+		boolean cacheEnabled = mBuilder.mWebContentCacheEnabled
+				&& Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB_MR1;
+		webView.setWebViewClient(new DialogWebViewClient(getContext(), overrideLoading, cacheEnabled));
 		if (url.startsWith("http") || url.endsWith("html")) {
-			mWebView.loadUrl(url);
+			webView.loadUrl(url);
+		} else if (cacheEnabled) {
+			// Relative links in the HTML resolve to assets, which are served from the cache
+			webView.loadDataWithBaseURL(WebContentCache.ASSET_URL_PREFIX, url, "text/html", "UTF-8", null);
 		} else {
-			mWebView.loadData(url, "text/html", null);
+			webView.loadData(url, "text/html", null);
 		}
 	}
 
@@ -861,7 +1486,7 @@ public class EasyDialog extends Dialog {
 	 * @param color
 	 */
 	public void setWebViewBackgroundColor(int color) {
-		mWebView.setBackgroundColor(color);
+		getWebView().setBackgroundColor(color);
 	}
 
 	/**
@@ -881,6 +1506,13 @@ public class EasyDialog extends Dialog {
 		return mBuilder.mListStyle;
 	}
 
+	/**
+	 * @return The GridView if the current list style is {@link #LIST_STYLE_GRIDVIEW}, else the ListView.
+	 */
+	private AbsListView getCurrentListView() {
+		return getCurrentListStyle() == LIST_STYLE_GRIDVIEW ? mGridView : mListView;
+	}
+
 	/**
 	 * 
 	 * @return The ListAdapter used in the ListView or GridView.<br> 
@@ -908,8 +1540,8 @@ public class EasyDialog extends Dialog {
 	 */
 	public void addListItems(List<ListItem> listItems) {
 		if (mAdapter != null) {
-			mAdapter.getListItems().addAll(listItems);
-			mAdapter.notifyDataSetChanged();
+			getListItems().addAll(listItems);
+			notifyListItemsChanged();
 		}
 	}
 
@@ -924,14 +1556,61 @@ public class EasyDialog extends Dialog {
 			for (String label : labels) {
 				items.add(new ListItem(label));
 			}
-			mAdapter.getListItems().addAll(items);
+			getListItems().addAll(items);
+			notifyListItemsChanged();
+		}
+	}
+
+	/**
+	 * Notifies the adapter that the list returned from {@link #getListItems()} was modified.
+	 */
+	public void notifyListItemsChanged() {
+		if (mAdapter != null) {
+			if (mAllListItems != null) {
+				mAdapter.setListItems(ListItems.filter(mAllListItems, mFilterQuery));
+			}
 			mAdapter.notifyDataSetChanged();
 		}
 	}
 
+	/**
+	 * Shows only the list items whose label or sub-label contains the query, ignoring case.
+	 * {@link #getListItems()} still returns all the items, and the positions passed to the Builder's
+	 * click listeners are positions in that list.
+	 * 
+	 * @param query The text to look for, or <code>null</code> or an empty string to show all the items.
+	 */
+	public void setFilterQuery(CharSequence query) {
+		if (mAdapter == null) {
+			return;
+		}
+		List<ListItem> items = getListItems();
+		if (query == null || query.length() == 0) {
+			if (mAllListItems == null) {
+				return;
+			}
+			mAllListItems = null;
+			mFilterQuery = null;
+			mAdapter.setListItems(items);
+			mAdapter.notifyDataSetChanged();
+		} else {
+			mAllListItems = items;
+			mFilterQuery = query.toString();
+			notifyListItemsChanged();
+		}
+	}
+
+	/**
+	 * @return The query set with {@link #setFilterQuery(CharSequence)}, or <code>null</code> if the list isn't filtered.
+	 */
+	public String getFilterQuery() {
+		return mFilterQuery;
+	}
+
 	/**
 	 * Set the ListItems for the ListAdapter.
 	 * @see #setListItems(int, List)
+	 * @see #updateListItems(List)
 	 * @param listItems
 	 */
 	public void setListItems(List<ListItem> listItems) {
@@ -951,6 +1630,10 @@ public class EasyDialog extends Dialog {
 			} else {
 				mGridView.setAdapter(mAdapter);
 			}
+		} else if (mAllListItems != null) {
+			mAdapter.setListStyle(listStyle);
+			mAllListItems = listItems;
+			notifyListItemsChanged();
 		} else {
 			mAdapter.setListStyle(listStyle);
 			mAdapter.setListItems(listItems);
@@ -958,6 +1641,121 @@ public class EasyDialog extends Dialog {
 		}
 	}
 
+	/**
+	 * Updates the list using the shared background executor.
+	 * @see #updateListItems(Executor, List)
+	 */
+	public void updateListItems(List<ListItem> listItems) {
+		updateListItems(DialogExecutors.getBackgroundExecutor(), listItems);
+	}
+
+	/**
+	 * Updates the list to the new items by applying only the inserts, removes and changes between 
+	 * the current and new list. The difference is computed on the executor using {@link #LIST_ITEM_DIFF_CALLBACK}.
+	 * <br><br>
+	 * Unlike {@link #setListItems(List)} the scroll position is kept and, if no items were inserted or 
+	 * removed, only the visible rows that changed are bound again.
+	 * 
+	 * @param executor  The {@link Executor} to compute the difference on.
+	 * @param listItems The new list items.
+	 */
+	public void updateListItems(Executor executor, List<ListItem> listItems) {
+		updateListItems(executor, listItems, LIST_ITEM_DIFF_CALLBACK);
+	}
+
+	/**
+	 * Updates the list like {@link #updateListItems(Executor, List)}, matching items with the given callback.
+	 * 
+	 * @param executor  The {@link Executor} to compute the difference on.
+	 * @param listItems The new list items.
+	 * @param callback  Decides which old and new items are the same, for example {@link #LIST_ITEM_LABEL_DIFF_CALLBACK}.
+	 */
+	public void updateListItems(Executor executor, List<ListItem> listItems, 
+			final ListDiff.Callback<? super ListItem> callback) {
+		if (mAdapter == null || mAllListItems != null) {
+			// A filtered list is filtered again instead
+			setListItems(listItems);
+			return;
+		}
+
+		final int generation = ++mListUpdateGeneration;
+		final List<ListItem> oldItems = new ArrayList<ListItem>(mAdapter.getListItems());
+		final List<ListItem> newItems = new ArrayList<ListItem>(listItems);
+
+		executor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				final List<ListDiff.Edit> edits = ListDiff.diff(oldItems, newItems, callback);
+				mHandler.post(new Runnable() {
+
+					@Override
+					public void run() {
+						applyListUpdate(generation, oldItems, newItems, edits);
+					}
+				});
+			}
+		});
+	}
+
+	private void applyListUpdate(int generation, List<ListItem> oldItems, List<ListItem> newItems, 
+			List<ListDiff.Edit> edits) {
+		if (generation != mListUpdateGeneration || mAdapter == null) {
+			return;
+		}
+
+		List<ListItem> items = mAdapter.getListItems();
+		if (!isSameItems(items, oldItems)) {
+			// The list was modified while the difference was computed
+			setListItems(newItems);
+			return;
+		}
+
+		if (edits.isEmpty()) {
+			return;
+		}
+
+		// Changed items keep the id of the item they replace so the views keep their position
+		for (ListDiff.Edit edit : edits) {
+			if (edit.type == ListDiff.Edit.CHANGE) {
+				newItems.get(edit.newPosition).id = items.get(edit.oldPosition).id;
+			}
+		}
+
+		ListDiff.apply(items, newItems, edits);
+
+		if (ListDiff.isStructural(edits)) {
+			mAdapter.notifyDataSetChanged();
+		} else {
+			AbsListView listView = getCurrentListView();
+			int firstPosition = listView.getFirstVisiblePosition();
+			int childCount = listView.getChildCount();
+			for (ListDiff.Edit edit : edits) {
+				int index = edit.newPosition - firstPosition;
+				if (index >= 0 && index < childCount) {
+					View child = listView.getChildAt(index);
+					if (mAdapter.getView(edit.newPosition, child, listView) != child) {
+						// The row changed shape and can't be bound in place
+						mAdapter.notifyDataSetChanged();
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	private static boolean isSameItems(List<ListItem> items, List<ListItem> snapshot) {
+		if (items.size() != snapshot.size()) {
+			return false;
+		}
+		for (int i = 0; i < snapshot.size(); i++) {
+			if (items.get(i) != snapshot.get(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Sets the {@link OnItemClickListener} for the ListView.
 	 * @param listener
@@ -1017,10 +1815,11 @@ public class EasyDialog extends Dialog {
 	/**
 	 * @see {@link EasyDialogListAdapter#getListItems()}
 	 * @return The list items in the {@link #mAdapter} or <code>null</code> if none have been set.
+	 *         If the list is filtered, all the items are returned.
 	 */
 	public List<ListItem> getListItems() {
 		if (mAdapter == null) return null;
-		return mAdapter.getListItems();
+		return mAllListItems != null ? mAllListItems : mAdapter.getListItems();
 	}
 
 	/**
@@ -1039,23 +1838,16 @@ public class EasyDialog extends Dialog {
 	 * @return A List of all the items that are checked in the adapter.
 	 */
 	public List<ListItem> getCheckedItems() {
-		List<ListItem> items = new ArrayList<ListItem>();
-		if (mAdapter != null) {
-			for (ListItem item : mAdapter.getListItems()) {
-				if (item.checked) {
-					items.add(item);
-				}
-			}
+		if (mAdapter == null) {
+			return new ArrayList<ListItem>();
 		}
-		return items;
+		return ListItems.getCheckedItems(getListItems());
 	}
 
 	/** Checks/Unchecks all the items in the list */
 	public void checkAll(boolean check) {
 		if (mAdapter == null) return;
-		for (ListItem item : mAdapter.getListItems()) {
-			item.checked = check;
-		}
+		ListItems.checkAll(getListItems(), check);
 		mAdapter.notifyDataSetChanged();
 	}
 
@@ -1068,34 +1860,45 @@ public class EasyDialog extends Dialog {
 		@Override
 		public void onItemClick(AdapterView<?> parent, View view,
 				int position, long id) {
+			boolean traced = DialogTrace.beginSection(DialogTrace.ITEM_CLICK);
+			try {
+				onDefaultItemClick(position);
+			} finally {
+				DialogTrace.endSection(traced);
+			}
+		}
+
+		private void onDefaultItemClick(int position) {
+			ListItem listItem = mAdapter.getItem(position);
+			// Listeners get the position in the unfiltered list
+			int which = mAllListItems != null ? mAllListItems.indexOf(listItem) : position;
 			if (mBuilder.mListStyle == LIST_STYLE_SINGLE_CHOICE) {
 				// uncheck all radio buttons except the list item that was clicked.
-				for (ListItem listItem : getListItems()) {
-					listItem.checked = false;
-				}
-
-				ListItem listItem = mAdapter.getItem(position);
-				listItem.checked = true;
+				ListItems.checkOnly(getListItems(), which);
 				mAdapter.notifyDataSetChanged();
 
 				if (mBuilder.mOnItemClickListener != null) {
-					mBuilder.mOnItemClickListener.onClick(EasyDialog.this, position);
+					mBuilder.mOnItemClickListener.onClick(EasyDialog.this, which);
 				}
 			} else {
 				// Toggle the CheckBox if it is visible.
-				ListItem listItem = mAdapter.getItem(position);
-				if (listItem.checked != null) {
-					listItem.checked = !listItem.checked;
+				if (ListItems.toggle(listItem)) {
 					mAdapter.notifyDataSetChanged();
 				}
 
 				if (mBuilder.mListStyle == LIST_STYLE_MULTI_CHOICE) {
 					if (mBuilder.mOnMultiChoiceClickListener != null) {
 						mBuilder.mOnMultiChoiceClickListener.onClick(
-								EasyDialog.this, position, listItem.checked);
+								EasyDialog.this, which, listItem.checked);
+					}
+				} else {
+					boolean completed = setResult(DialogResult.NO_BUTTON, which);
+					if (mBuilder.mOnItemClickListener != null) {
+						mBuilder.mOnItemClickListener.onClick(EasyDialog.this, which);
+					}
+					if (completed) {
+						dismiss();
 					}
-				} else if (mBuilder.mOnItemClickListener != null) {
-					mBuilder.mOnItemClickListener.onClick(EasyDialog.this, position);
 				}
 			}
 		}
@@ -1230,9 +2033,14 @@ public class EasyDialog extends Dialog {
 
 			@Override
 			public void onClick(View v) {
-				if (listener != null) {
-					listener.onClick(EasyDialog.this, BUTTON_NEGATIVE);
+				// The negative button stops any running task
+				if (mTaskToken != null) {
+					mTaskToken.cancel();
+					mNegativeButton.setEnabled(false);
 				}
+				cancelListItemLoader();
+
+				onButtonClick(BUTTON_NEGATIVE, listener);
 			}
 		});
 	}
@@ -1262,9 +2070,7 @@ public class EasyDialog extends Dialog {
 
 			@Override
 			public void onClick(View v) {
-				if (listener != null) {
-					listener.onClick(EasyDialog.this, BUTTON_NEUTRAL);
-				}
+				onButtonClick(BUTTON_NEUTRAL, listener);
 			}
 		});
 	}
@@ -1294,13 +2100,47 @@ public class EasyDialog extends Dialog {
 
 			@Override
 			public void onClick(View v) {
-				if (listener != null) {
-					listener.onClick(EasyDialog.this, BUTTON_POSITIVE);
-				}
+				onButtonClick(BUTTON_POSITIVE, listener);
 			}
 		});
 	}
 
+	/**
+	 * Completes the {@link DialogFuture} with the state of the dialog, then calls the button's listener.
+	 * The dialog is dismissed if it was shown for a result.
+	 */
+	private void onButtonClick(int which, DialogInterface.OnClickListener listener) {
+		// Completed first, so a listener that dismisses the dialog doesn't cancel the future
+		boolean completed = setResult(which, -1);
+		if (listener != null) {
+			listener.onClick(this, which);
+		}
+		if (completed) {
+			dismiss();
+		}
+	}
+
+	void setResultFuture(DialogFuture future) {
+		mResultFuture = future;
+	}
+
+	/**
+	 * @return <code>true</code> if the dialog was shown for a result and the {@link DialogFuture} was completed.
+	 */
+	private boolean setResult(int button, int position) {
+		DialogFuture future = mResultFuture;
+		if (future == null) {
+			return false;
+		}
+		mResultFuture = null;
+		List<ListItem> items = getListItems();
+		int[] checked = items != null ? ListItems.getCheckedPositions(items) : new int[0];
+		String text = mEditText.getVisibility() == View.VISIBLE ? mEditText.getText().toString() : null;
+		Boolean checkBox = mCheckBox.getVisibility() == View.VISIBLE ? Boolean.valueOf(mCheckBox.isChecked()) : null;
+		future.complete(new DialogResult(button, position, checked, text, checkBox));
+		return true;
+	}
+
 	/** ~-~-~-~-~-~-~-~-~-~-~-~-~ *
 	 *  ~-       Getters       -~ *
 	 ** ~-~-~-~-~-~-~-~-~-~-~-~-~ */
@@ -1400,8 +2240,19 @@ public class EasyDialog extends Dialog {
 		return mHorizontalProgressCountText;
 	}
 
-	/** @return The dialog's WebView */
+	/**
+	 * The WebView is borrowed from the {@link WebViewPool} the first time it is needed
+	 * and given back when the dialog is dismissed.
+	 *
+	 * @return The dialog's WebView
+	 */
 	public WebView getWebView() {
+		if (mWebView == null) {
+			mWebView = WebViewPool.obtain(getContext());
+			mWebView.setId(R.id.dialog_webview);
+			mWebViewFrame.addView(mWebView, new FrameLayout.LayoutParams(
+					FrameLayout.LayoutParams.MATCH_PARENT, FrameLayout.LayoutParams.WRAP_CONTENT));
+		}
 		return mWebView;
 	}
 
@@ -1479,8 +2330,13 @@ public class EasyDialog extends Dialog {
 
 		protected Typeface mTitleFont;
 		protected Typeface mMainFont;
+		protected String mTitleFontPath;
+		protected AssetManager mTitleFontAssets;
+		protected String mMainFontPath;
+		protected AssetManager mMainFontAssets;
 
 		protected Drawable mTitleIcon;
+		protected int mTitleIconResId;
 		protected String mTitleText;
 		protected String mSubtitleText;
 		protected boolean mShowTitlebarProgress;
@@ -1488,6 +2344,8 @@ public class EasyDialog extends Dialog {
 		protected CompoundButton.OnCheckedChangeListener mTitleCheckBoxListener;
 
 		protected String mDialogMessage;
+		protected Reader mLongMessageReader;
+		protected File mLongMessageFile;
 		protected boolean mShowIndeterminateProgress;
 		protected String mProgressMessage;
 
@@ -1500,10 +2358,17 @@ public class EasyDialog extends Dialog {
 		protected int mWebViewBackgroundColor;
 		protected String mWebViewUrl;
 		protected boolean mOverrideLoadingOnWebView;
+		protected boolean mWebContentCacheEnabled = true;
+		protected boolean mLightweightHtml;
+		protected boolean mReleaseWebViewOnDismiss;
+		protected boolean mReleaseOnDismiss;
 
 		protected String mEditTextText;
 		protected String mEditTextHint;
 		protected TextWatcher mTextWatcher;
+		protected TextValidator mTextValidator;
+		protected Executor mTextValidatorExecutor;
+		protected long mTextValidatorDelayMillis;
 
 		protected String mCheckBoxText;
 		protected boolean mCheckBoxIsChecked;
@@ -1515,8 +2380,16 @@ public class EasyDialog extends Dialog {
 		protected int mListItemTextColor;
 		protected int mListItemCheckBoxDrawable;
 		protected int mListItemRadioButtonDrawable;
+		protected boolean mFlatListItems;
+		protected boolean mPrecomputedText;
+		protected boolean mAdapterStats;
+		protected boolean mSaveListItems;
 		protected int mListStyle;
 		protected List<ListItem> mListItems;
+		protected int mListItemsArrayId;
+		protected Drawable[] mListItemsArrayIcons;
+		protected boolean[] mListItemsArrayChecked;
+		protected int mListItemsArrayCheckedItem;
 
 		protected DialogInterface.OnClickListener mOnItemClickListener;
 		protected DialogInterface.OnMultiChoiceClickListener mOnMultiChoiceClickListener;
@@ -1538,6 +2411,13 @@ public class EasyDialog extends Dialog {
 		protected DialogInterface.OnShowListener mOnShowListener;
 		protected DialogInterface.OnDismissListener mOnDismissListener;
 
+		protected EasyDialogTask<?> mTask;
+		protected Executor mTaskExecutor;
+		protected ListItemLoader<?> mListItemLoader;
+		protected DialogMetrics.Listener mMetricsListener;
+		protected FrameMonitor.Listener mFrameMonitorListener;
+		protected Object mTag;
+
 		public Builder(Context context) {
 			this(context, 0);
 		}
@@ -1652,6 +2532,7 @@ public class EasyDialog extends Dialog {
 		 */
 		public Builder setIcon(Drawable icon) {
 			this.mTitleIcon = icon;
+			this.mTitleIconResId = 0;
 			return this;
 		}
 
@@ -1662,7 +2543,8 @@ public class EasyDialog extends Dialog {
 		 * @return Builder object to allow for chaining of calls to set methods 
 		 */
 		public Builder setIcon(int drawableId) {
-			this.mTitleIcon = mContext.getResources().getDrawable(drawableId);
+			this.mTitleIcon = null;
+			this.mTitleIconResId = drawableId;
 			return this;
 		}
 
@@ -1722,6 +2604,43 @@ public class EasyDialog extends Dialog {
 			return this;
 		}
 
+		/**
+		 * Set a message that is too long for {@link #setMessage(String)}, like a license or a log.
+		 * The text is split into paragraphs and shown in a list, so only the visible paragraphs are laid out.
+		 * 
+		 * @param text
+		 * @return Builder object to allow for chaining of calls to set methods
+		 */
+		public Builder setLongMessage(CharSequence text) {
+			return setLongMessage(new StringReader(text.toString()));
+		}
+
+		/**
+		 * Set a long message that is read on a background thread. Paragraphs are shown as they are read.
+		 * The reader is closed when done and can only be used for one dialog.
+		 * 
+		 * @param reader
+		 * @return Builder object to allow for chaining of calls to set methods
+		 */
+		public Builder setLongMessage(Reader reader) {
+			this.mLongMessageReader = reader;
+			this.mLongMessageFile = null;
+			return this;
+		}
+
+		/**
+		 * Set a UTF-8 text file to show as a long message. The file is indexed on a background thread
+		 * and paragraphs are only read from it when they are shown, so files of any size can be shown.
+		 * 
+		 * @param file
+		 * @return Builder object to allow for chaining of calls to set methods
+		 */
+		public Builder setLongMessage(File file) {
+			this.mLongMessageFile = file;
+			this.mLongMessageReader = null;
+			return this;
+		}
+
 		/**
 		 * Set a listener to be invoked when the negative button of the dialog is pressed.
 		 * 
@@ -2033,6 +2952,60 @@ public class EasyDialog extends Dialog {
 			return this;
 		}
 
+		/**
+		 * Serves assets loaded in the {@link WebView} from the {@link WebContentCache}.
+		 * Enabled by default. Ignored before Android 3.1.
+		 *
+		 * @param enabled
+		 * @return Builder object to allow for chaining of calls to set methods
+		 */
+		public Builder setWebContentCacheEnabled(boolean enabled) {
+			this.mWebContentCacheEnabled = enabled;
+			return this;
+		}
+
+		/**
+		 * Shows inline HTML and <code>file:///android_asset/</code> pages set with {@link #setWebViewUrl(String)}
+		 * in the message TextView instead of a {@link WebView}. The HTML is parsed on a background thread and
+		 * cached. Headings, paragraphs, text styles, links and lists are supported. Content with any other tag,
+		 * a style sheet or a script is still loaded in the WebView. Ignored before Android 3.1.
+		 *
+		 * @param enabled
+		 * @return Builder object to allow for chaining of calls to set methods
+		 */
+		public Builder setLightweightHtmlEnabled(boolean enabled) {
+			this.mLightweightHtml = enabled;
+			return this;
+		}
+
+		/**
+		 * By default the {@link WebView} is paused and returned to the {@link WebViewPool} when the dialog
+		 * is dismissed. Set to <code>true</code> to destroy it instead, so its memory can be freed right away.
+		 *
+		 * @param release
+		 * @return Builder object to allow for chaining of calls to set methods
+		 */
+		public Builder setReleaseWebViewOnDismiss(boolean release) {
+			this.mReleaseWebViewOnDismiss = release;
+			return this;
+		}
+
+		/**
+		 * Set to <code>true</code> to release the dialog when it is dismissed. The dialog and this Builder then
+		 * drop their references to the list items, icons, custom views and listeners, and the WebView is destroyed.
+		 * A dialog kept by a thread or a task after it is dismissed no longer keeps every list item and icon in memory.
+		 * <br><br>
+		 * A released dialog can't be shown again unless it is built with a new Builder.
+		 * 
+		 * @see DialogLeakDetector
+		 * @param release
+		 * @return Builder object to allow for chaining of calls to set methods
+		 */
+		public Builder setReleaseOnDismiss(boolean release) {
+			this.mReleaseOnDismiss = release;
+			return this;
+		}
+
 		/**
 		 * Enables fast scrolling on the ListView and GridView.
 		 * 
@@ -2055,6 +3028,57 @@ public class EasyDialog extends Dialog {
 			return this;
 		}
 
+		/**
+		 * Draws each list item with a single {@link ListItemView} instead of inflating the list item layout.
+		 * Rows are cheaper to create and bind, but a custom layout set with the
+		 * <code>dialogListItemLayout</code> attribute is ignored.
+		 *
+		 * @param flat
+		 * @return Builder object to allow for chaining of calls to set methods
+		 */
+		public Builder setFlatListItemsEnabled(boolean flat) {
+			this.mFlatListItems = flat;
+			return this;
+		}
+
+		/**
+		 * Measures the label and sub-label of the list items on a background thread once the list
+		 * has a width, and keeps the layouts in a bounded {@link TextLayoutCache}. Binding a row
+		 * then reuses the measured text. Enables {@link #setFlatListItemsEnabled(boolean)}.
+		 * Ignored before Android 3.1.
+		 *
+		 * @param precompute
+		 * @return Builder object to allow for chaining of calls to set methods
+		 */
+		public Builder setPrecomputedTextEnabled(boolean precompute) {
+			this.mPrecomputedText = precompute;
+			return this;
+		}
+
+		/**
+		 * Count the rows the list adapter inflates, recycles and binds, and how long binding takes.
+		 * Read the counts with {@link EasyDialogListAdapter#getStats()}.
+		 * 
+		 * @param enabled
+		 * @return Builder object to allow for chaining of calls to set methods
+		 */
+		public Builder setAdapterStatsEnabled(boolean enabled) {
+			this.mAdapterStats = enabled;
+			return this;
+		}
+
+		/**
+		 * Set to <code>true</code> to save the list items to a cache file in {@link EasyDialog#onSaveInstanceState()},
+		 * so a large list can be restored with {@link EasyDialog#restoreListItems(Bundle)} instead of being loaded again.
+		 * 
+		 * @param save
+		 * @return Builder object to allow for chaining of calls to set methods
+		 */
+		public Builder setSaveListItems(boolean save) {
+			this.mSaveListItems = save;
+			return this;
+		}
+
 		/**
 		 * Set the items to list in the GridView.
 		 * 
@@ -2096,11 +3120,7 @@ public class EasyDialog extends Dialog {
 		public Builder setGridViewItems(int arrayId, DialogInterface.OnClickListener listener) {
 			this.mListStyle = EasyDialog.LIST_STYLE_GRIDVIEW;
 			this.mOnItemClickListener = listener;
-			this.mListItems = new ArrayList<ListItem>();
-			String[] items = mContext.getResources().getStringArray(arrayId);
-			for (String label : items) {
-				this.mListItems.add(new ListItem(label));
-			}
+			setListItemsArray(arrayId, null, null, -1);
 			return this;
 		}
 
@@ -2164,11 +3184,7 @@ public class EasyDialog extends Dialog {
 		public Builder setItems(Drawable[] icons, int arrayId, DialogInterface.OnClickListener listener) {
 			this.mListStyle = EasyDialog.LIST_STYLE_LISTVIEW;
 			this.mOnItemClickListener = listener;
-			this.mListItems = new ArrayList<ListItem>();
-			String[] items = mContext.getResources().getStringArray(arrayId);
-			for (int i = 0; i < icons.length; i++) {
-				this.mListItems.add(new ListItem(icons[i], items[i]));
-			}
+			setListItemsArray(arrayId, icons, null, -1);
 			return this;
 		}
 
@@ -2182,11 +3198,7 @@ public class EasyDialog extends Dialog {
 		public Builder setItems(int arrayId, DialogInterface.OnClickListener listener) {
 			this.mListStyle = EasyDialog.LIST_STYLE_LISTVIEW;
 			this.mOnItemClickListener = listener;
-			this.mListItems = new ArrayList<ListItem>();
-			String[] items = mContext.getResources().getStringArray(arrayId);
-			for (String label : items) {
-				this.mListItems.add(new ListItem(label));
-			}
+			setListItemsArray(arrayId, null, null, -1);
 			return this;
 		}
 
@@ -2233,11 +3245,7 @@ public class EasyDialog extends Dialog {
 		public Builder setMultiChoiceItems(int arrayId, boolean[] checkedItems, DialogInterface.OnMultiChoiceClickListener listener) {
 			this.mListStyle = EasyDialog.LIST_STYLE_MULTI_CHOICE;
 			this.mOnMultiChoiceClickListener = listener;
-			this.mListItems = new ArrayList<ListItem>();
-			String[] items = mContext.getResources().getStringArray(arrayId);
-			for (int i = 0; i < checkedItems.length; i++) {
-				this.mListItems.add(new ListItem(items[i], checkedItems[i]));
-			}
+			setListItemsArray(arrayId, null, checkedItems, -1);
 			return this;
 		}
 
@@ -2284,11 +3292,7 @@ public class EasyDialog extends Dialog {
 		public Builder setSingleChoiceItems(int arrayId, int checkedItem, DialogInterface.OnClickListener listener) {
 			this.mListStyle = EasyDialog.LIST_STYLE_SINGLE_CHOICE;
 			this.mOnItemClickListener = listener;
-			this.mListItems = new ArrayList<ListItem>();
-			String[] items = mContext.getResources().getStringArray(arrayId);
-			for (int i = 0; i < items.length; i++) {
-				this.mListItems.add(new ListItem(items[i], (i == checkedItem)));
-			}
+			setListItemsArray(arrayId, null, null, checkedItem);
 			return this;
 		}
 
@@ -2321,6 +3325,33 @@ public class EasyDialog extends Dialog {
 			return this;
 		}
 
+		/**
+		 * Validates the EditText on the shared background executor 300 milliseconds after the user stops typing.
+		 * 
+		 * @see #setEditTextValidator(Executor, long, TextValidator)
+		 * @param validator
+		 * @return Builder object to allow for chaining of calls to set methods
+		 */
+		public Builder setEditTextValidator(TextValidator validator) {
+			return setEditTextValidator(DialogExecutors.getBackgroundExecutor(), 300, validator);
+		}
+
+		/**
+		 * Validates the text of the EditText in the background. The positive button is enabled only while the
+		 * text is valid, and the validator's error is shown on the EditText.
+		 * 
+		 * @param executor    The {@link Executor} to run the validator on.
+		 * @param delayMillis The time to wait after the last keystroke before validating.
+		 * @param validator   The {@link TextValidator}
+		 * @return Builder object to allow for chaining of calls to set methods
+		 */
+		public Builder setEditTextValidator(Executor executor, long delayMillis, TextValidator validator) {
+			this.mTextValidatorExecutor = executor;
+			this.mTextValidatorDelayMillis = delayMillis;
+			this.mTextValidator = validator;
+			return this;
+		}
+
 		/**
 		 * Sets a CheckBox right above the dialog buttons.
 		 * 
@@ -2359,6 +3390,7 @@ public class EasyDialog extends Dialog {
 		 */
 		public Builder setTitleFont(Typeface typeface) {
 			this.mTitleFont = typeface;
+			this.mTitleFontPath = null;
 			return this;
 		}
 
@@ -2369,7 +3401,9 @@ public class EasyDialog extends Dialog {
 		 * @return Builder object to allow for chaining of calls to set methods
 		 */
 		public Builder setMainFont(String path) {
-			this.mMainFont = Typeface.createFromFile(path);
+			this.mMainFont = null;
+			this.mMainFontAssets = null;
+			this.mMainFontPath = path;
 			return this;
 		}
 
@@ -2380,7 +3414,9 @@ public class EasyDialog extends Dialog {
 		 * @return Builder object to allow for chaining of calls to set methods
 		 */
 		public Builder setTitleFont(String path) {
-			this.mTitleFont = Typeface.createFromFile(path);
+			this.mTitleFont = null;
+			this.mTitleFontAssets = null;
+			this.mTitleFontPath = path;
 			return this;
 		}
 
@@ -2392,11 +3428,9 @@ public class EasyDialog extends Dialog {
 		 * @return Builder object to allow for chaining of calls to set methods
 		 */
 		public Builder setMainFont(AssetManager mgr, String path) {
-			try {
-				this.mMainFont = Typeface.createFromAsset(mgr, path);
-			} catch (RuntimeException e) {
-			}
-
+			this.mMainFont = null;
+			this.mMainFontAssets = mgr;
+			this.mMainFontPath = path;
 			return this;
 		}
 
@@ -2408,11 +3442,9 @@ public class EasyDialog extends Dialog {
 		 * @return Builder object to allow for chaining of calls to set methods
 		 */
 		public Builder setTitleFont(AssetManager mgr, String path) {
-			try {
-				this.mTitleFont = Typeface.createFromAsset(mgr, path);
-			} catch (RuntimeException e) {
-			}
-
+			this.mTitleFont = null;
+			this.mTitleFontAssets = mgr;
+			this.mTitleFontPath = path;
 			return this;
 		}
 
@@ -2424,9 +3456,89 @@ public class EasyDialog extends Dialog {
 		 */
 		public Builder setMainFont(Typeface typeface) {
 			this.mMainFont = typeface;
+			this.mMainFontPath = null;
+			return this;
+		}
+
+		/**
+		 * Loads list items from the sources in parallel once the dialog is shown.
+		 * Items are inserted into the list in sorted order as they are loaded.
+		 * Call this after setting the list with one of the set*Items methods.
+		 * If no list was set, the items are shown in a ListView.
+		 * 
+		 * @see ListItemLoader
+		 * @param sources The source records to create the list items from.
+		 * @param loader  The {@link ListItemLoader} that creates a list item for each source.
+		 * @return Builder object to allow for chaining of calls to set methods
+		 */
+		public <T> Builder setListItemLoader(Collection<? extends T> sources, ListItemLoader<T> loader) {
+			if (this.mListItems == null && this.mListItemsArrayId == 0) {
+				this.mListStyle = EasyDialog.LIST_STYLE_LISTVIEW;
+				this.mListItems = new ArrayList<ListItem>();
+			}
+			loader.mSources = new ArrayList<T>(sources);
+			this.mListItemLoader = loader;
+			return this;
+		}
+
+		/**
+		 * Sets a task to run in the background once the dialog is shown.
+		 * The negative button cancels the task.
+		 * 
+		 * @see EasyDialog#execute(Executor, EasyDialogTask)
+		 * @param executor The {@link Executor} to run the background work on.
+		 * @param task     The {@link EasyDialogTask} to run.
+		 * @return Builder object to allow for chaining of calls to set methods
+		 */
+		public Builder setTask(Executor executor, EasyDialogTask<?> task) {
+			this.mTaskExecutor = executor;
+			this.mTask = task;
+			return this;
+		}
+
+		/**
+		 * Set a listener that receives how long the dialogs of this Builder take to build and draw.
+		 * It is used instead of the listener set with {@link DialogMetrics#setGlobalListener(DialogMetrics.Listener)}.
+		 * 
+		 * @param listener
+		 * @return Builder object to allow for chaining of calls to set methods
+		 */
+		public Builder setMetricsListener(DialogMetrics.Listener listener) {
+			this.mMetricsListener = listener;
+			return this;
+		}
+
+		/**
+		 * Set a listener that receives the frames drawn while the dialogs of this Builder are showing.
+		 * It is used instead of the listener set with {@link FrameMonitor#setGlobalListener(FrameMonitor.Listener)}.
+		 * Ignored before Android 4.1.
+		 * 
+		 * @param listener
+		 * @return Builder object to allow for chaining of calls to set methods
+		 */
+		public Builder setFrameMonitorListener(FrameMonitor.Listener listener) {
+			this.mFrameMonitorListener = listener;
+			return this;
+		}
+
+		/**
+		 * Set an object that identifies the dialog in reports, like the name of the screen that shows it.
+		 * 
+		 * @param tag
+		 * @return Builder object to allow for chaining of calls to set methods
+		 */
+		public Builder setTag(Object tag) {
+			this.mTag = tag;
 			return this;
 		}
 
+		/**
+		 * @return The tag set with {@link #setTag(Object)}
+		 */
+		public Object getTag() {
+			return mTag;
+		}
+
 		/**
 		 * Creates the dialog
 		 * 
@@ -2436,6 +3548,147 @@ public class EasyDialog extends Dialog {
 			return new EasyDialog(this);
 		}
 
+		/**
+		 * Defers creating the list items of an array resource to {@link #prepare()}.
+		 */
+		private void setListItemsArray(int arrayId, Drawable[] icons, boolean[] checkedItems, int checkedItem) {
+			this.mListItems = null;
+			this.mListItemsArrayId = arrayId;
+			this.mListItemsArrayIcons = icons;
+			this.mListItemsArrayChecked = checkedItems;
+			this.mListItemsArrayCheckedItem = checkedItem;
+		}
+
+		/**
+		 * Loads the inputs the set methods deferred: fonts, the title icon and list items from array resources.
+		 * Called on the thread that creates the dialog, or on the executor of {@link #showAsync(Executor)}.
+		 * Does nothing if they are already loaded.
+		 */
+		protected void prepare() {
+			if (mTitleFontPath != null) {
+				mTitleFont = loadFont(mTitleFontAssets, mTitleFontPath);
+				mTitleFontPath = null;
+				mTitleFontAssets = null;
+			}
+			if (mMainFontPath != null) {
+				mMainFont = loadFont(mMainFontAssets, mMainFontPath);
+				mMainFontPath = null;
+				mMainFontAssets = null;
+			}
+			if (mTitleIconResId != 0) {
+				mTitleIcon = mContext.getResources().getDrawable(mTitleIconResId);
+				mTitleIconResId = 0;
+			}
+			if (mListItemsArrayId != 0) {
+				if (mListItems == null) {
+					mListItems = newListItems(mContext.getResources().getStringArray(mListItemsArrayId));
+				}
+				mListItemsArrayId = 0;
+				mListItemsArrayIcons = null;
+				mListItemsArrayChecked = null;
+			}
+		}
+
+		private static Typeface loadFont(AssetManager assets, String path) {
+			if (assets == null) {
+				return Typeface.createFromFile(path);
+			}
+			try {
+				return Typeface.createFromAsset(assets, path);
+			} catch (RuntimeException e) {
+				return null;
+			}
+		}
+
+		private List<ListItem> newListItems(String[] labels) {
+			List<ListItem> items = new ArrayList<ListItem>();
+			if (mListItemsArrayIcons != null) {
+				for (int i = 0; i < mListItemsArrayIcons.length; i++) {
+					items.add(new ListItem(mListItemsArrayIcons[i], labels[i]));
+				}
+			} else if (mListItemsArrayChecked != null) {
+				for (int i = 0; i < mListItemsArrayChecked.length; i++) {
+					items.add(new ListItem(labels[i], mListItemsArrayChecked[i]));
+				}
+			} else if (mListStyle == EasyDialog.LIST_STYLE_SINGLE_CHOICE) {
+				for (int i = 0; i < labels.length; i++) {
+					items.add(new ListItem(labels[i], (i == mListItemsArrayCheckedItem)));
+				}
+			} else {
+				for (String label : labels) {
+					items.add(new ListItem(label));
+				}
+			}
+			return items;
+		}
+
+		/**
+		 * Loads the fonts, title icon and list items on the executor, then creates and shows the dialog with
+		 * a single post to the UI thread. Can be called from any thread.
+		 * 
+		 * @see #prepare()
+		 * @param executor The {@link Executor} to load the inputs on.
+		 */
+		public void showAsync(Executor executor) {
+			final Handler handler = new Handler(Looper.getMainLooper());
+			executor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						prepare();
+					} catch (final RuntimeException e) {
+						// Thrown on the UI thread, like show() would
+						handler.post(new Runnable() {
+
+							@Override
+							public void run() {
+								throw e;
+							}
+						});
+						return;
+					}
+					handler.post(new Runnable() {
+
+						@Override
+						public void run() {
+							new EasyDialog(Builder.this).show();
+						}
+					});
+				}
+			});
+		}
+
+		/**
+		 * Drops the references to the list items, icons, views and listeners.
+		 * Called when a dialog set with {@link #setReleaseOnDismiss(boolean)} is dismissed.
+		 */
+		void release() {
+			mDialogBackground = null;
+			mCustomTitleView = null;
+			mMainDialogView = null;
+			mTitleIcon = null;
+			mTitleCheckBoxListener = null;
+			mLongMessageReader = null;
+			mTextWatcher = null;
+			mTextValidator = null;
+			mOnCheckedChangeListener = null;
+			mListItems = null;
+			mOnItemClickListener = null;
+			mOnMultiChoiceClickListener = null;
+			mNegativeButtonClickListener = null;
+			mNeutralButtonClickListener = null;
+			mPositiveButtonClickListener = null;
+			mOnCancelListener = null;
+			mOnKeyListener = null;
+			mOnShowListener = null;
+			mOnDismissListener = null;
+			mTask = null;
+			mListItemLoader = null;
+			mMetricsListener = null;
+			mFrameMonitorListener = null;
+		}
+
 		/**
 		 * Creates and shows the dialog
 		 * @return
@@ -2461,36 +3714,66 @@ public class EasyDialog extends Dialog {
 				}
 			});
 		}
+
+		/**
+		 * Shows the dialog and returns its result when it is closed, without wiring listeners. 
+		 * Can be called from any thread. The Builder's own listeners are still called.
+		 * <br><br>
+		 * Example code, on a worker thread:
+		 * <br>
+		 * <pre>
+		 * {@code
+		 * DialogResult result = new EasyDialog.Builder(context)
+		 * .setTitle("Delete 3 files?")
+		 * .setNegativeButton("Cancel", null)
+		 * .setPositiveButton("Delete", null)
+		 * .showForResult()
+		 * .get();
+		 * if (result.getButton() == DialogInterface.BUTTON_POSITIVE) {
+		 *     deleteFiles();
+		 * }
+		 * }
+		 * </pre>
+		 * 
+		 * @see DialogFuture
+		 * @return The pending result. Canceled if the dialog is closed without a button or list item click,
+		 *         and failed if the dialog can't be shown.
+		 */
+		public DialogFuture showForResult() {
+			DialogFuture future = new DialogFuture();
+			future.show(this);
+			return future;
+		}
+
+		/**
+		 * Submits the Builder to the {@link DialogQueue} with {@link DialogQueue#PRIORITY_NORMAL}.
+		 * Can be called from any thread.
+		 * 
+		 * @see DialogQueue#submit(Builder, int)
+		 */
+		public void enqueue() {
+			DialogQueue.getInstance().submit(this);
+		}
+
+		/**
+		 * Submits the Builder to the {@link DialogQueue}. Can be called from any thread.
+		 * 
+		 * @see DialogQueue#submit(Builder, int)
+		 * @param priority The priority, for example {@link DialogQueue#PRIORITY_HIGH}.
+		 */
+		public void enqueue(int priority) {
+			DialogQueue.getInstance().submit(this, priority);
+		}
 	}
 
 	/**
 	 * Class holding data for the {@link EasyDialogListAdapter}'s getView method
 	 */
-	public static class ListItem {
-
-		/** The label for the list item */
-		public String label;
+	public static class ListItem extends BaseListItem {
 
 		/** The icon for the list item. If null then no icon will be shown */
 		public Drawable icon;
 
-		/** The text that gets displayed right under the label. 
-		 * If null then the view's visibility will be set to {@link View#GONE} */
-		public String subLabel;
-
-		/** Whether the CheckBox or RadioButton should be checked. 
-		 * If null the CheckBox and RadioButton will not be displayed. */
-		public Boolean checked;
-
-		/** Can be used to store some data */
-		public Object data;
-
-		/** The color of the label */
-		public int labelColor = -1;
-
-		/** The color of the sub-label */
-		public int subLabelColor = -1;
-
 		public ListItem() {
 		}
 
@@ -2515,10 +3798,8 @@ public class EasyDialog extends Dialog {
 		}
 
 		public ListItem(Drawable icon, String label, String subLabel, Boolean checked) {
+			super(label, subLabel, checked);
 			this.icon = icon;
-			this.label = label;
-			this.subLabel = subLabel;
-			this.checked = checked;
 		}
 	}
 
@@ -2535,8 +3816,57 @@ public class EasyDialog extends Dialog {
 
 		@Override
 		public int compare(ListItem item1, ListItem item2) {
-			return item1.label.compareToIgnoreCase(item2.label);
+			return ListItems.LABEL_COMPARATOR.compare(item1, item2);
+		}
+
+	};
+
+	/**
+	 * Matches items by their stable {@link ListItem#id} and compares everything that is displayed.
+	 * 
+	 * @see #updateListItems(Executor, List)
+	 */
+	public static final ListDiff.Callback<ListItem> LIST_ITEM_DIFF_CALLBACK = new ListItemDiffCallback() {
+
+		@Override
+		public boolean areItemsTheSame(ListItem oldItem, ListItem newItem) {
+			return oldItem.id == newItem.id;
+		}
+
+	};
+
+	/**
+	 * Matches items by {@link ListItem#data}, or by label if neither item has data, and compares
+	 * everything that is displayed. Use it for lists that are rebuilt with new items and ids.
+	 * 
+	 * @see #updateListItems(Executor, List, ListDiff.Callback)
+	 */
+	public static final ListDiff.Callback<ListItem> LIST_ITEM_LABEL_DIFF_CALLBACK = new ListItemDiffCallback() {
+
+		@Override
+		public boolean areItemsTheSame(ListItem oldItem, ListItem newItem) {
+			if (oldItem.data != null || newItem.data != null) {
+				return equal(oldItem.data, newItem.data);
+			}
+			return equal(oldItem.label, newItem.label);
 		}
 
 	};
+
+	private static abstract class ListItemDiffCallback implements ListDiff.Callback<ListItem> {
+
+		@Override
+		public boolean areContentsTheSame(ListItem oldItem, ListItem newItem) {
+			return oldItem.icon == newItem.icon
+					&& oldItem.labelColor == newItem.labelColor
+					&& oldItem.subLabelColor == newItem.subLabelColor
+					&& equal(oldItem.label, newItem.label)
+					&& equal(oldItem.subLabel, newItem.subLabel)
+					&& equal(oldItem.checked, newItem.checked);
+		}
+
+		static boolean equal(Object a, Object b) {
+			return a == null ? b == null : a.equals(b);
+		}
+	}
 }
@@ -6,6 +6,7 @@ import android.content.Context;
 import android.graphics.Color;
 import android.graphics.Typeface;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -19,6 +20,13 @@ import com.jrummy.apps.R;
 
 public class EasyDialogListAdapter extends BaseAdapter {
 
+	// Row shapes. Rows are only recycled into views of the same shape.
+	private static final int SHAPE_ICON = 0x01;
+	private static final int SHAPE_SUB_LABEL = 0x02;
+	private static final int SHAPE_CHECKBOX = 0x04;
+	private static final int SHAPE_RADIO_BUTTON = 0x08;
+	private static final int VIEW_TYPE_COUNT = 12;
+
 	private List<EasyDialog.ListItem> mListItems;
 	private LayoutInflater mInflater;
 
@@ -29,8 +37,14 @@ public class EasyDialogListAdapter extends BaseAdapter {
 	private int mRadioButtonDrawable = R.drawable.btn_radio_holo_dark;
 	private int mListStyle;
 	private Typeface mTypeface;
+	private Context mContext;
+	private boolean mFlatListItems;
+	private TextLayoutCache mTextLayoutCache;
+	private int mPrecomputedWidth;
+	private AdapterStats.Recorder mStats;
 
 	public EasyDialogListAdapter(EasyDialog.Builder builder) {
+		mContext = builder.mContext;
 		mInflater = LayoutInflater.from(builder.mContext);
 		mListItems = builder.mListItems;
 		mLayout = builder.mListItemLayout;
@@ -40,9 +54,17 @@ public class EasyDialogListAdapter extends BaseAdapter {
 		mRadioButtonDrawable = builder.mListItemRadioButtonDrawable;
 		mListStyle = builder.mListStyle;
 		mTypeface = builder.mMainFont;
+		mFlatListItems = builder.mFlatListItems;
+		setStatsEnabled(builder.mAdapterStats);
+		// TextLayoutCache uses LruCache, added in Honeycomb MR1
+		if (builder.mPrecomputedText && Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB_MR1) {
+			mFlatListItems = true;
+			mTextLayoutCache = new TextLayoutCache(TextLayoutCache.DEFAULT_MAX_SIZE);
+		}
 	}
 
 	public EasyDialogListAdapter(Context context, List<EasyDialog.ListItem> listItems, int listStyle) {
+		mContext = context;
 		mInflater = LayoutInflater.from(context);
 		mListItems = listItems;
 		mListStyle = listStyle;
@@ -72,6 +94,63 @@ public class EasyDialogListAdapter extends BaseAdapter {
 		mTextColor = color;
 	}
 
+	/**
+	 * Starts or stops counting the rows the adapter binds. Enabling it again starts from zero.
+	 *
+	 * @param enabled
+	 * @see #getStats()
+	 */
+	public void setStatsEnabled(boolean enabled) {
+		mStats = enabled ? new AdapterStats.Recorder() : null;
+	}
+
+	/**
+	 * @return What the adapter has done since {@link #setStatsEnabled(boolean)}, or <code>null</code> if it isn't counting.
+	 */
+	public AdapterStats getStats() {
+		return mStats != null ? mStats.snapshot() : null;
+	}
+
+	@Override
+	public void notifyDataSetChanged() {
+		if (mStats != null) {
+			mStats.onNotify();
+		}
+		super.notifyDataSetChanged();
+	}
+
+	/**
+	 * @param flat <code>true</code> to draw rows with a {@link ListItemView}.
+	 *             Call {@link #notifyDataSetInvalidated()} after changing it on a showing list.
+	 */
+	public void setFlatListItemsEnabled(boolean flat) {
+		mFlatListItems = flat;
+	}
+
+	/**
+	 * Sets the cache flat rows take their text layouts from. The layouts of the items
+	 * are built on a background thread once the width of the list is known.
+	 *
+	 * @param cache The cache or <code>null</code> to measure text while binding rows.
+	 */
+	public void setTextLayoutCache(TextLayoutCache cache) {
+		if (mTextLayoutCache != null) {
+			mTextLayoutCache.cancelPrecompute();
+		}
+		mTextLayoutCache = cache;
+		mPrecomputedWidth = 0;
+	}
+
+	/**
+	 * Stops building text layouts in the background. Called when the dialog stops.
+	 */
+	public void cancelTextPrecompute() {
+		if (mTextLayoutCache != null) {
+			mTextLayoutCache.cancelPrecompute();
+			mPrecomputedWidth = 0;
+		}
+	}
+
 	@Override
 	public int getCount() {
 		return mListItems.size();
@@ -88,26 +167,156 @@ public class EasyDialogListAdapter extends BaseAdapter {
 
 	@Override
 	public long getItemId(int position) {
-		return 0;
+		EasyDialog.ListItem item = getItem(position);
+		return item == null ? 0 : item.id;
+	}
+
+	@Override
+	public boolean hasStableIds() {
+		return true;
+	}
+
+	@Override
+	public int getViewTypeCount() {
+		return VIEW_TYPE_COUNT;
+	}
+
+	@Override
+	public int getItemViewType(int position) {
+		EasyDialog.ListItem item = getItem(position);
+		if (item == null || mFlatListItems) {
+			// A ListItemView draws every shape
+			return 0;
+		}
+
+		int shape = 0;
+		if (item.icon != null) {
+			shape |= SHAPE_ICON;
+		}
+		if (item.subLabel != null) {
+			shape |= SHAPE_SUB_LABEL;
+		}
+		switch (getCheckMode(item)) {
+		case ListItemView.CHECK_RADIO:
+			shape |= SHAPE_RADIO_BUTTON;
+			break;
+		case ListItemView.CHECK_BOX:
+			shape |= SHAPE_CHECKBOX;
+			break;
+		}
+		return shape;
+	}
+
+	private int getCheckMode(EasyDialog.ListItem item) {
+		if (mListStyle == EasyDialog.LIST_STYLE_SINGLE_CHOICE) {
+			return ListItemView.CHECK_RADIO;
+		} else if (mListStyle == EasyDialog.LIST_STYLE_MULTI_CHOICE) {
+			return ListItemView.CHECK_BOX;
+		} else if ((mListStyle == EasyDialog.LIST_STYLE_LISTVIEW
+				|| mListStyle == EasyDialog.LIST_STYLE_GRIDVIEW) && item.checked != null) {
+			return ListItemView.CHECK_BOX;
+		}
+		return ListItemView.CHECK_NONE;
 	}
 
 	@Override
 	public View getView(int position, View convertView, ViewGroup parent) {
+		if (mFlatListItems) {
+			return getFlatView(position, convertView, parent);
+		}
+
 		final ViewHolder viewHolder;
+		final int viewType = getItemViewType(position);
 
-		if (convertView == null) {
-			viewHolder = new ViewHolder(parent);
+		final boolean inflate = convertView == null || !(convertView.getTag() instanceof ViewHolder)
+				|| ((ViewHolder) convertView.getTag()).mViewType != viewType;
+		final boolean traced = DialogTrace.beginSection(inflate ? DialogTrace.CREATE_VIEW : DialogTrace.BIND_VIEW);
+		if (inflate) {
+			viewHolder = new ViewHolder(parent, viewType);
 			convertView = viewHolder.mConvertView;
 			convertView.setTag(viewHolder);
 		} else {
 			viewHolder = (ViewHolder) convertView.getTag();
 		}
 
-		viewHolder.setItem(getItem(position));
+		if (mStats != null) {
+			mStats.onGetView(inflate);
+			long start = System.nanoTime();
+			viewHolder.setItem(getItem(position));
+			mStats.onBind(System.nanoTime() - start);
+		} else {
+			viewHolder.setItem(getItem(position));
+		}
 
+		DialogTrace.endSection(traced);
 		return convertView;
 	}
 
+	private View getFlatView(int position, View convertView, ViewGroup parent) {
+		final ListItemView itemView;
+		final boolean inflate = !(convertView instanceof ListItemView);
+		final boolean traced = DialogTrace.beginSection(inflate ? DialogTrace.CREATE_VIEW : DialogTrace.BIND_VIEW);
+		if (!inflate) {
+			itemView = (ListItemView) convertView;
+		} else {
+			itemView = new ListItemView(mContext);
+			itemView.setCheckBoxDrawable(mCheckBoxDrawable);
+			itemView.setRadioButtonDrawable(mRadioButtonDrawable);
+			itemView.setTextLayoutCache(mTextLayoutCache);
+		}
+
+		// The tag holds the list style the background was set for
+		if (!Integer.valueOf(mListStyle).equals(itemView.getTag())) {
+			itemView.setTag(mListStyle);
+			if (mListStyle == EasyDialog.LIST_STYLE_GRIDVIEW) {
+				itemView.setBackgroundResource(mBackground);
+			} else {
+				itemView.setBackgroundColor(Color.TRANSPARENT);
+			}
+		}
+		itemView.setTextColor(mTextColor);
+		itemView.setTypeface(mTypeface);
+
+		EasyDialog.ListItem item = getItem(position);
+		if (mStats != null) {
+			mStats.onGetView(inflate);
+			long start = System.nanoTime();
+			itemView.setItem(item, getCheckMode(item));
+			mStats.onBind(System.nanoTime() - start);
+		} else {
+			itemView.setItem(item, getCheckMode(item));
+		}
+
+		if (mTextLayoutCache != null) {
+			precomputeTextLayouts(itemView, parent);
+		}
+
+		DialogTrace.endSection(traced);
+		return itemView;
+	}
+
+	/**
+	 * Builds the text layouts of every item in the background the first time the list has a width.
+	 * GridView cells are measured by their column, so only single column lists are precomputed.
+	 */
+	private void precomputeTextLayouts(ListItemView itemView, ViewGroup parent) {
+		if (mListStyle == EasyDialog.LIST_STYLE_GRIDVIEW) {
+			return;
+		}
+		int width = parent.getWidth() - parent.getPaddingLeft() - parent.getPaddingRight();
+		if (width <= 0 || width == mPrecomputedWidth) {
+			return;
+		}
+		mPrecomputedWidth = width;
+
+		int[] checkModes = new int[mListItems.size()];
+		for (int i = 0; i < checkModes.length; i++) {
+			checkModes[i] = getCheckMode(mListItems.get(i));
+		}
+		mTextLayoutCache.precompute(mListItems, itemView.getTextWidths(width, false),
+				itemView.getTextWidths(width, true), checkModes, DialogExecutors.getBackgroundExecutor());
+	}
+
 	private class ViewHolder {
 		private View mConvertView;
 		private ImageView mIcon;
@@ -116,16 +325,39 @@ public class EasyDialogListAdapter extends BaseAdapter {
 		private CheckBox mCheckBox;
 		private RadioButton mRadioButton;
 
-		public ViewHolder(ViewGroup parent) {
+		private final int mViewType;
+		private int mAppliedListStyle = -1;
+		private Typeface mAppliedTypeface;
+
+		public ViewHolder(ViewGroup parent, int viewType) {
+			mViewType = viewType;
 			mConvertView = mInflater.inflate(mLayout, parent, false);
 			mIcon        = (ImageView)   mConvertView.findViewById(R.id.icon       );
 			mLabel       = (TextView)    mConvertView.findViewById(R.id.label      );
 			mSubLabel    = (TextView)    mConvertView.findViewById(R.id.sublabel   );
 			mCheckBox    = (CheckBox)    mConvertView.findViewById(R.id.checkbox   );
 			mRadioButton = (RadioButton) mConvertView.findViewById(R.id.radiobutton);
+			setShape();
+		}
+
+		/**
+		 * Sets the visibility of the optional views once. The view type guarantees
+		 * every item bound to this holder has the same shape.
+		 */
+		private void setShape() {
+			mIcon.setVisibility((mViewType & SHAPE_ICON) != 0 ? View.VISIBLE : View.GONE);
+			mSubLabel.setVisibility((mViewType & SHAPE_SUB_LABEL) != 0 ? View.VISIBLE : View.GONE);
+			mCheckBox.setVisibility((mViewType & SHAPE_CHECKBOX) != 0 ? View.VISIBLE : View.GONE);
+			mRadioButton.setVisibility((mViewType & SHAPE_RADIO_BUTTON) != 0 ? View.VISIBLE : View.GONE);
+			mCheckBox.setButtonDrawable(mCheckBoxDrawable);
+			mRadioButton.setButtonDrawable(mRadioButtonDrawable);
 		}
 
 		private void setBackground() {
+			if (mAppliedListStyle == mListStyle) {
+				return;
+			}
+			mAppliedListStyle = mListStyle;
 			if (mListStyle == EasyDialog.LIST_STYLE_GRIDVIEW) {
 				mConvertView.setBackgroundResource(mBackground);
 			} else {
@@ -135,10 +367,7 @@ public class EasyDialogListAdapter extends BaseAdapter {
 
 		private void setIcon(Drawable icon) {
 			if (icon != null) {
-				mIcon.setVisibility(View.VISIBLE);
 				mIcon.setImageDrawable(icon);
-			} else {
-				mIcon.setVisibility(View.GONE);
 			}
 		}
 
@@ -153,66 +382,43 @@ public class EasyDialogListAdapter extends BaseAdapter {
 
 		private void setSubLabel(String label) {
 			if (label != null) {
-				mSubLabel.setVisibility(View.VISIBLE);
 				mSubLabel.setText(label);
-			} else {
-				mSubLabel.setVisibility(View.GONE);
 			}
 		}
 
 		private void setCheckableButtons(Boolean checked) {
-			if (mListStyle == EasyDialog.LIST_STYLE_SINGLE_CHOICE) {
-				mCheckBox.setVisibility(View.GONE);
-				mRadioButton.setVisibility(View.VISIBLE);
-
-				if (checked == null) {
-					checked = false;
-				}
+			if (checked == null) {
+				checked = false;
+			}
 
+			if ((mViewType & SHAPE_RADIO_BUTTON) != 0) {
 				mRadioButton.setChecked(checked);
-			} else if (mListStyle == EasyDialog.LIST_STYLE_LISTVIEW
-					|| mListStyle == EasyDialog.LIST_STYLE_GRIDVIEW) {
-				if (checked == null) {
-					mCheckBox.setVisibility(View.GONE);
-					mRadioButton.setVisibility(View.GONE);
-				} else {
-					mCheckBox.setVisibility(View.VISIBLE);
-					mRadioButton.setVisibility(View.GONE);
-					mCheckBox.setChecked(checked);
-				}
-			} else if (mListStyle == EasyDialog.LIST_STYLE_MULTI_CHOICE) {
-				mCheckBox.setVisibility(View.VISIBLE);
-				mRadioButton.setVisibility(View.GONE);
-
-				if (checked == null) {
-					checked = false;
-				}
-
+			} else if ((mViewType & SHAPE_CHECKBOX) != 0) {
 				mCheckBox.setChecked(checked);
 			}
 		}
 
 		private void setTypeface() {
-			if (mTypeface != null) {
+			if (mTypeface != null && mTypeface != mAppliedTypeface) {
+				mAppliedTypeface = mTypeface;
 				mLabel.setTypeface(mTypeface);
 				mSubLabel.setTypeface(mTypeface);
 			}
 		}
 
 		private void setTheme(EasyDialog.ListItem item) {
-			mCheckBox.setButtonDrawable(mCheckBoxDrawable);
-			mRadioButton.setButtonDrawable(mRadioButtonDrawable);
-
 			if (item.labelColor == -1) {
 				mLabel.setTextColor(mTextColor);
 			} else {
 				mLabel.setTextColor(item.labelColor);
 			}
 
-			if (item.labelColor == -1) {
-				mSubLabel.setTextColor(mTextColor);
-			} else {
-				mSubLabel.setTextColor(item.subLabelColor);
+			if ((mViewType & SHAPE_SUB_LABEL) != 0) {
+				if (item.subLabelColor == -1) {
+					mSubLabel.setTextColor(mTextColor);
+				} else {
+					mSubLabel.setTextColor(item.subLabelColor);
+				}
 			}
 		}
 
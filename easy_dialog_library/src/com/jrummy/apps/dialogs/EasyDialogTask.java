@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+/**
+ * Work that runs in the background while an {@link EasyDialog} is showing.
+ * <br><br>
+ * {@link #doInBackground(CancellationToken, ProgressReporter)} runs on the Executor passed to
+ * {@link EasyDialog#execute(java.util.concurrent.Executor, EasyDialogTask)} or
+ * {@link EasyDialog.Builder#setTask(java.util.concurrent.Executor, EasyDialogTask)}.
+ * All other callbacks run on the UI thread.
+ * <br><br>
+ * Example code:
+ * <br>
+ * <pre>
+ * {@code
+ * new EasyDialog.Builder(context)
+ * .setTitle(R.string.please_wait)
+ * .setHorizontalProgress(files.length, 0, "Searching...")
+ * .setNegativeButton(R.string.db_cancel, null)
+ * .setTask(executor, new EasyDialogTask<Integer>() {
+ *
+ * 		protected Integer doInBackground(CancellationToken token, ProgressReporter progress) {
+ * 			int found = 0;
+ * 			for (int i = 0; i < files.length && !token.isCancelled(); i++) {
+ * 				found += search(files[i]);
+ * 				progress.incrementProgressBy(1);
+ * 			}
+ * 			return found;
+ * 		}
+ *
+ * 		protected EasyDialog.Builder onSuccess(EasyDialog dialog, Integer found) {
+ * 			return new EasyDialog.Builder(context).setMessage("Found " + found);
+ * 		}
+ * 	})
+ *  .show();
+ *
+ * </pre>
+ *
+ * @param <Result> The type returned from the background work.
+ */
+public abstract class EasyDialogTask<Result> {
+
+	/**
+	 * Runs on a background thread.
+	 *
+	 * @param token    Canceled when the negative button is pressed or the dialog is canceled.
+	 * @param progress Updates the dialog's horizontal progress bar.
+	 * @return The result passed to {@link #onSuccess(EasyDialog, Object)}
+	 * @throws Exception Any exception is passed to {@link #onError(EasyDialog, Throwable)}
+	 */
+	protected abstract Result doInBackground(CancellationToken token, ProgressReporter progress) throws Exception;
+
+	/**
+	 * Called on the UI thread when the task completed without being canceled.
+	 *
+	 * @param dialog The dialog the task is bound to.
+	 * @param result The value returned from {@link #doInBackground(CancellationToken, ProgressReporter)}
+	 * @return A {@link EasyDialog.Builder} to build the dialog with or <code>null</code> to dismiss the dialog.
+	 */
+	protected EasyDialog.Builder onSuccess(EasyDialog dialog, Result result) {
+		return null;
+	}
+
+	/**
+	 * Called on the UI thread when {@link #doInBackground(CancellationToken, ProgressReporter)} threw.
+	 *
+	 * @param dialog The dialog the task is bound to.
+	 * @param error  The exception that was thrown.
+	 * @return A {@link EasyDialog.Builder} to build the dialog with or <code>null</code> to dismiss the dialog.
+	 */
+	protected EasyDialog.Builder onError(EasyDialog dialog, Throwable error) {
+		return null;
+	}
+
+	/**
+	 * Called on the UI thread after the task stopped because it was canceled.
+	 * Dismisses the dialog by default.
+	 *
+	 * @param dialog The dialog the task is bound to.
+	 */
+	protected void onCancelled(EasyDialog dialog) {
+		dialog.dismiss();
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import java.util.concurrent.Executor;
+
+import android.content.DialogInterface;
+import android.os.Handler;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.util.Log;
+import android.widget.EditText;
+
+import com.jrummy.apps.R;
+
+/**
+ * Runs a dialog's {@link TextValidator} when the user stops typing and applies the newest result.
+ * Used on the UI thread only, except for the validator.
+ */
+final class EditTextValidation implements TextWatcher {
+
+	private static final String TAG = "EditTextValidation";
+
+	private final EasyDialog mDialog;
+	private final EditText mEditText;
+	private final Handler mHandler;
+	private final Executor mExecutor;
+	private final long mDelayMillis;
+	private final TextValidator mValidator;
+
+	private CancellationToken mToken;
+
+	EditTextValidation(EasyDialog dialog, EditText editText, Handler handler, Executor executor,
+			long delayMillis, TextValidator validator) {
+		mDialog = dialog;
+		mEditText = editText;
+		mHandler = handler;
+		mExecutor = executor;
+		mDelayMillis = delayMillis;
+		mValidator = validator;
+	}
+
+	@Override
+	public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+	}
+
+	@Override
+	public void onTextChanged(CharSequence s, int start, int before, int count) {
+	}
+
+	@Override
+	public void afterTextChanged(Editable s) {
+		schedule(mDelayMillis);
+	}
+
+	/**
+	 * Disables the positive button and validates the text after the delay, canceling any earlier run.
+	 */
+	void schedule(long delayMillis) {
+		cancel();
+		mDialog.setButtonEnabledState(DialogInterface.BUTTON_POSITIVE, false);
+		mHandler.postDelayed(mStartValidation, delayMillis);
+	}
+
+	/**
+	 * Stops the pending and running validation. Their results are ignored.
+	 */
+	void cancel() {
+		mHandler.removeCallbacks(mStartValidation);
+		if (mToken != null) {
+			mToken.cancel();
+			mToken = null;
+		}
+	}
+
+	private final Runnable mStartValidation = new Runnable() {
+
+		@Override
+		public void run() {
+			final String text = mEditText.getText().toString();
+			final CancellationToken token = new CancellationToken();
+			mToken = token;
+			mExecutor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					if (token.isCancelled()) {
+						return;
+					}
+					CharSequence error;
+					boolean valid;
+					try {
+						error = mValidator.validate(token, text);
+						valid = error == null;
+					} catch (Exception e) {
+						// Keep the button disabled, but tell the user why
+						Log.w(TAG, "Validator failed", e);
+						error = mEditText.getContext().getString(R.string.dialog_validation_failed);
+						valid = false;
+					}
+					if (token.isCancelled()) {
+						return;
+					}
+
+					final CharSequence result = error;
+					final boolean resultValid = valid;
+					mHandler.post(new Runnable() {
+
+						@Override
+						public void run() {
+							if (!token.isCancelled()) {
+								mToken = null;
+								mEditText.setError(result);
+								mDialog.setButtonEnabledState(DialogInterface.BUTTON_POSITIVE, resultValid);
+							}
+						}
+					});
+				}
+			});
+		}
+	};
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import android.os.Build;
+import android.view.Choreographer;
+
+/**
+ * Watches the frames of the UI thread while an {@link EasyDialog} is showing.
+ * <br><br>
+ * The monitor starts when the dialog is shown and stops when it is dismissed. Each vsync is
+ * timed with a {@link Choreographer} frame callback, and a frame is over budget when the UI thread
+ * was busy for more than one and a half refresh intervals. The {@link Report} is passed to the
+ * {@link Listener} when the dialog is dismissed. The monitor does nothing before Android 4.1.
+ * <br><br>
+ * Register a listener for all dialogs with {@link #setGlobalListener(Listener)}, or for the dialogs of
+ * one Builder with {@link EasyDialog.Builder#setFrameMonitorListener(Listener)}.
+ */
+public final class FrameMonitor {
+
+	/** A dialog with a message, or only a title and buttons */
+	public static final int KIND_MESSAGE = 0;
+	/** A dialog with a ListView */
+	public static final int KIND_LIST = 1;
+	/** A dialog with a GridView */
+	public static final int KIND_GRID = 2;
+	/** A dialog with a progress bar */
+	public static final int KIND_PROGRESS = 3;
+	/** A dialog with a WebView or HTML message */
+	public static final int KIND_WEB = 4;
+	/** A dialog with the caller's own view */
+	public static final int KIND_CUSTOM = 5;
+
+	/**
+	 * Receives the frames of a dialog when it is dismissed. Called on the UI thread.
+	 */
+	public interface Listener {
+
+		/**
+		 * @param dialog The dismissed dialog
+		 * @param report The frames drawn while it was showing
+		 */
+		void onFrameReport(EasyDialog dialog, Report report);
+	}
+
+	/**
+	 * The frames drawn while a dialog was showing.
+	 */
+	public static final class Report {
+
+		private final int mDialogKind;
+		private final Object mTag;
+		private final long mFrameBudgetNanos;
+		private final int mFrameCount;
+		private final int mJankyFrameCount;
+		private final int mDroppedFrameCount;
+		private final long mWorstFrameNanos;
+		private final long mDurationNanos;
+
+		Report(int dialogKind, Object tag, long frameBudgetNanos, int frameCount, int jankyFrameCount,
+				int droppedFrameCount, long worstFrameNanos, long durationNanos) {
+			mDialogKind = dialogKind;
+			mTag = tag;
+			mFrameBudgetNanos = frameBudgetNanos;
+			mFrameCount = frameCount;
+			mJankyFrameCount = jankyFrameCount;
+			mDroppedFrameCount = droppedFrameCount;
+			mWorstFrameNanos = worstFrameNanos;
+			mDurationNanos = durationNanos;
+		}
+
+		/** @return One of the <code>KIND_</code> constants. */
+		public int getDialogKind() {
+			return mDialogKind;
+		}
+
+		/** @return The tag set with {@link EasyDialog.Builder#setTag(Object)}. */
+		public Object getTag() {
+			return mTag;
+		}
+
+		/** @return The refresh interval of the display in nanoseconds. */
+		public long getFrameBudgetNanos() {
+			return mFrameBudgetNanos;
+		}
+
+		/** @return The number of frames seen. */
+		public int getFrameCount() {
+			return mFrameCount;
+		}
+
+		/** @return The number of frames that took longer than the budget. */
+		public int getJankyFrameCount() {
+			return mJankyFrameCount;
+		}
+
+		/** @return The number of vsyncs missed by the janky frames. */
+		public int getDroppedFrameCount() {
+			return mDroppedFrameCount;
+		}
+
+		/** @return The longest frame in nanoseconds. */
+		public long getWorstFrameNanos() {
+			return mWorstFrameNanos;
+		}
+
+		/** @return The time the dialog was watched in nanoseconds. */
+		public long getDurationNanos() {
+			return mDurationNanos;
+		}
+
+		@Override
+		public String toString() {
+			return "FrameMonitor.Report{kind=" + mDialogKind + ", tag=" + mTag
+					+ ", frames=" + mFrameCount + ", janky=" + mJankyFrameCount
+					+ ", dropped=" + mDroppedFrameCount + ", worstNanos=" + mWorstFrameNanos
+					+ ", durationNanos=" + mDurationNanos + "}";
+		}
+	}
+
+	private static volatile Listener sGlobalListener;
+
+	private final EasyDialog mDialog;
+	private final Listener mListener;
+	private final int mDialogKind;
+	private final Object mTag;
+	private final long mFrameBudgetNanos;
+
+	private boolean mRunning;
+	private long mStartTime;
+	private long mLastFrameTime;
+	private int mFrameCount;
+	private int mJankyFrameCount;
+	private int mDroppedFrameCount;
+	private long mWorstFrameNanos;
+
+	FrameMonitor(EasyDialog dialog, Listener listener, int dialogKind, Object tag, float refreshRate) {
+		mDialog = dialog;
+		mListener = listener;
+		mDialogKind = dialogKind;
+		mTag = tag;
+		mFrameBudgetNanos = (long) (1000000000L / (refreshRate > 0 ? refreshRate : 60));
+	}
+
+	/**
+	 * Sets the listener for dialogs whose Builder has no listener.
+	 *
+	 * @param listener The listener, or <code>null</code> to stop watching frames.
+	 */
+	public static void setGlobalListener(Listener listener) {
+		sGlobalListener = listener;
+	}
+
+	/**
+	 * @return The listener set with {@link #setGlobalListener(Listener)}.
+	 */
+	public static Listener getGlobalListener() {
+		return sGlobalListener;
+	}
+
+	static Listener getListener(EasyDialog.Builder builder) {
+		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+			return null;
+		}
+		return builder.mFrameMonitorListener != null ? builder.mFrameMonitorListener : sGlobalListener;
+	}
+
+	void start() {
+		if (mRunning) {
+			return;
+		}
+		mRunning = true;
+		mStartTime = System.nanoTime();
+		mLastFrameTime = 0;
+		mFrameCount = 0;
+		mJankyFrameCount = 0;
+		mDroppedFrameCount = 0;
+		mWorstFrameNanos = 0;
+		Choreographer.getInstance().postFrameCallback(mFrameCallback);
+	}
+
+	void stop() {
+		if (!mRunning) {
+			return;
+		}
+		mRunning = false;
+		Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+		mListener.onFrameReport(mDialog, new Report(mDialogKind, mTag, mFrameBudgetNanos, mFrameCount,
+				mJankyFrameCount, mDroppedFrameCount, mWorstFrameNanos, System.nanoTime() - mStartTime));
+	}
+
+	// Not implemented by the monitor itself, so the class loads on releases without Choreographer
+	private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			if (!mRunning) {
+				return;
+			}
+			if (mLastFrameTime != 0) {
+				long frameNanos = frameTimeNanos - mLastFrameTime;
+				mFrameCount++;
+				if (frameNanos > mWorstFrameNanos) {
+					mWorstFrameNanos = frameNanos;
+				}
+				if (frameNanos > mFrameBudgetNanos + mFrameBudgetNanos / 2) {
+					mJankyFrameCount++;
+					mDroppedFrameCount += (int) (frameNanos / mFrameBudgetNanos) - 1;
+				}
+			}
+			mLastFrameTime = frameTimeNanos;
+			Choreographer.getInstance().postFrameCallback(this);
+		}
+	};
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.xml.sax.XMLReader;
+
+import android.content.res.AssetManager;
+import android.text.Editable;
+import android.text.Html;
+import android.text.Spanned;
+import android.text.SpannedString;
+import android.util.LruCache;
+
+/**
+ * Parses simple HTML into {@link Spanned} text that a TextView can show instead of a WebView.
+ * <br><br>
+ * Only the tags {@link Html#fromHtml(String)} understands are accepted, plus lists which are drawn
+ * with bullets or numbers. Content with any other tag, or with a style sheet or script, is rejected so the
+ * caller can fall back to a WebView. Results are kept in a small process-wide LRU cache, which counts the
+ * characters of both the key and the text. Inline HTML that needs a WebView isn't cached.
+ *
+ * @see EasyDialog.Builder#setLightweightHtmlEnabled(boolean)
+ */
+final class HtmlText {
+
+	private static final Set<String> SUPPORTED_TAGS = new HashSet<String>(Arrays.asList(
+			"html", "body", "meta", "br", "p", "div", "span", "strong", "b", "em", "cite", "dfn", "i",
+			"big", "small", "font", "blockquote", "tt", "a", "u", "sup", "sub",
+			"h1", "h2", "h3", "h4", "h5", "h6", "ul", "ol", "li"));
+
+	private static final Pattern COMMENT = Pattern.compile("<!--.*?-->|<![^>]*>", Pattern.DOTALL);
+	private static final Pattern HEAD = Pattern.compile("<head[\\s>].*?</head\\s*>",
+			Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+	private static final Pattern TAG = Pattern.compile("<\\s*/?\\s*([a-zA-Z][a-zA-Z0-9]*)");
+
+	/** Cached for assets that need a WebView, so they are only read once */
+	private static final Spanned UNSUPPORTED = new SpannedString("");
+
+	private static final LruCache<String, Spanned> sCache = new LruCache<String, Spanned>(256 * 1024) {
+
+		@Override
+		protected int sizeOf(String key, Spanned value) {
+			// The key is the whole HTML for inline content
+			return key.length() + value.length();
+		}
+	};
+
+	private HtmlText() {
+	}
+
+	/**
+	 * @param url A url or HTML passed to {@link EasyDialog.Builder#setWebViewUrl(String)}
+	 * @return <code>true</code> if the content is inline HTML or an asset.
+	 */
+	static boolean canLoad(String url) {
+		return url.startsWith(WebContentCache.ASSET_URL_PREFIX) || !(url.startsWith("http") || url.endsWith("html"));
+	}
+
+	/**
+	 * @return The cached text, or <code>null</code> if the url hasn't been loaded.
+	 *         Check {@link #isSupported(Spanned)} before showing it.
+	 */
+	static Spanned getCached(String url) {
+		return sCache.get(url);
+	}
+
+	/**
+	 * @return <code>false</code> if the text was returned for content that needs a WebView.
+	 */
+	static boolean isSupported(Spanned text) {
+		return text != UNSUPPORTED;
+	}
+
+	/**
+	 * Reads and parses the content. Runs on a background thread.
+	 *
+	 * @param assets The AssetManager to read assets from
+	 * @param url    Inline HTML or a <code>file:///android_asset/</code> url
+	 * @return The text. Check {@link #isSupported(Spanned)} before showing it.
+	 * @throws IOException if the asset couldn't be read
+	 */
+	static Spanned load(AssetManager assets, String url) throws IOException {
+		String html = url;
+		boolean asset = url.startsWith(WebContentCache.ASSET_URL_PREFIX);
+		if (asset) {
+			InputStream in = WebContentCache.openAsset(assets, url.substring(WebContentCache.ASSET_URL_PREFIX.length()));
+			if (in == null) {
+				throw new IOException("Asset not found: " + url);
+			}
+			html = read(in);
+		}
+
+		Spanned text = parse(html);
+		if (asset || text != UNSUPPORTED) {
+			// Parsing inline HTML again only costs the tag scan, so it isn't worth the memory
+			sCache.put(url, text);
+		}
+		return text;
+	}
+
+	private static Spanned parse(String html) {
+		html = COMMENT.matcher(html).replaceAll("");
+		html = HEAD.matcher(html).replaceAll("");
+		Matcher matcher = TAG.matcher(html);
+		while (matcher.find()) {
+			if (!SUPPORTED_TAGS.contains(matcher.group(1).toLowerCase(Locale.US))) {
+				return UNSUPPORTED;
+			}
+		}
+		return new SpannedString(trim(Html.fromHtml(html, null, new ListTagHandler())));
+	}
+
+	private static CharSequence trim(Spanned text) {
+		int end = text.length();
+		while (end > 0 && Character.isWhitespace(text.charAt(end - 1))) {
+			end--;
+		}
+		return text.subSequence(0, end);
+	}
+
+	private static String read(InputStream in) throws IOException {
+		Reader reader = new InputStreamReader(in, "UTF-8");
+		try {
+			StringBuilder sb = new StringBuilder();
+			char[] buffer = new char[4096];
+			int read;
+			while ((read = reader.read(buffer)) != -1) {
+				sb.append(buffer, 0, read);
+			}
+			return sb.toString();
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Draws &lt;ul&gt; items with bullets and &lt;ol&gt; items with numbers.
+	 */
+	private static class ListTagHandler implements Html.TagHandler {
+
+		/** The next number of each open list, or -1 for a bullet list */
+		private final List<Integer> mLists = new ArrayList<Integer>();
+
+		@Override
+		public void handleTag(boolean opening, String tag, Editable output, XMLReader xmlReader) {
+			if (tag.equalsIgnoreCase("ul") || tag.equalsIgnoreCase("ol")) {
+				if (opening) {
+					mLists.add(tag.equalsIgnoreCase("ol") ? 1 : -1);
+				} else if (!mLists.isEmpty()) {
+					mLists.remove(mLists.size() - 1);
+				}
+				newLine(output);
+			} else if (tag.equalsIgnoreCase("li")) {
+				if (opening) {
+					newLine(output);
+					for (int i = 1; i < mLists.size(); i++) {
+						output.append("    ");
+					}
+					int last = mLists.size() - 1;
+					if (last >= 0 && mLists.get(last) != -1) {
+						int number = mLists.get(last);
+						mLists.set(last, number + 1);
+						output.append(number + ". ");
+					} else {
+						output.append("\u2022 ");
+					}
+				} else {
+					newLine(output);
+				}
+			}
+		}
+
+		private static void newLine(Editable output) {
+			int length = output.length();
+			if (length > 0 && output.charAt(length - 1) != '\n') {
+				output.append('\n');
+			}
+		}
+	}
+}
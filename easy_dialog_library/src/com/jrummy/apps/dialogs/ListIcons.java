@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jrummy.apps.dialogs;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+
+import com.jrummy.apps.R;
+
+/**
+ * Decodes icons for {@link EasyDialog.ListItem#icon} at the size they are drawn in a list or grid row.
+ * <br><br>
+ * A launcher icon or a photo is often many times larger than the 38dp icon of a row, and a full
+ * size bitmap stays in memory for every item of the list. These methods decode the image with a
+ * sample size that is close to the row's icon size, scale it to fit that size, and use
+ * {@link Bitmap.Config#RGB_565} for JPEG images, which have no alpha channel. The ListView and
+ * GridView of a dialog use the same row layout, so {@link #getIconSize(Context)} is right for both.
+ * <br><br>
+ * The methods can be called from any thread, for example in a {@link ListItemLoader}.
+ */
+public final class ListIcons {
+
+	private static final String MIME_JPEG = "image/jpeg";
+
+	private ListIcons() {
+	}
+
+	/**
+	 * @param context
+	 * @return The width and height of a row's icon in pixels.
+	 */
+	public static int getIconSize(Context context) {
+		return context.getResources().getDimensionPixelSize(R.dimen.dialog_list_item_icon_size);
+	}
+
+	/**
+	 * Decodes an image resource to the given size.
+	 *
+	 * @param res
+	 * @param resId The drawable resource
+	 * @param size The width and height of the icon in pixels, see {@link #getIconSize(Context)}
+	 * @return The icon, or <code>null</code> if the resource could not be decoded.
+	 */
+	public static Drawable decodeResource(Resources res, int resId, int size) {
+		BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inJustDecodeBounds = true;
+		BitmapFactory.decodeResource(res, resId, options);
+		if (!prepareOptions(options, size)) {
+			return null;
+		}
+		// Sample the image as it is stored, the scaling below takes care of the density
+		options.inScaled = false;
+		return toDrawable(res, BitmapFactory.decodeResource(res, resId, options), size);
+	}
+
+	/**
+	 * Decodes an image file to the given size.
+	 *
+	 * @param res
+	 * @param path The path of the image file
+	 * @param size The width and height of the icon in pixels, see {@link #getIconSize(Context)}
+	 * @return The icon, or <code>null</code> if the file could not be decoded.
+	 */
+	public static Drawable decodeFile(Resources res, String path, int size) {
+		BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inJustDecodeBounds = true;
+		BitmapFactory.decodeFile(path, options);
+		if (!prepareOptions(options, size)) {
+			return null;
+		}
+		return toDrawable(res, BitmapFactory.decodeFile(path, options), size);
+	}
+
+	/**
+	 * Decodes an encoded image to the given size.
+	 *
+	 * @param res
+	 * @param data The encoded image, for example a PNG or JPEG
+	 * @param size The width and height of the icon in pixels, see {@link #getIconSize(Context)}
+	 * @return The icon, or <code>null</code> if the data could not be decoded.
+	 */
+	public static Drawable decodeByteArray(Resources res, byte[] data, int size) {
+		BitmapFactory.Options options = new BitmapFactory.Options();
+		options.inJustDecodeBounds = true;
+		BitmapFactory.decodeByteArray(data, 0, data.length, options);
+		if (!prepareOptions(options, size)) {
+			return null;
+		}
+		return toDrawable(res, BitmapFactory.decodeByteArray(data, 0, data.length, options), size);
+	}
+
+	/**
+	 * Draws an icon that is already loaded, such as one from
+	 * {@link android.content.pm.PackageManager}, into a bitmap of the given size. The large
+	 * drawable can then be garbage collected while the list is showing.
+	 *
+	 * @param res
+	 * @param icon The icon to scale
+	 * @param size The width and height of the icon in pixels, see {@link #getIconSize(Context)}
+	 * @return The scaled icon, or <code>icon</code> if it already fits in <code>size</code>.
+	 */
+	public static Drawable scale(Resources res, Drawable icon, int size) {
+		if (icon == null) {
+			return null;
+		}
+		int width = icon.getIntrinsicWidth();
+		int height = icon.getIntrinsicHeight();
+		if (width <= size && height <= size) {
+			return icon;
+		}
+		if (icon instanceof BitmapDrawable) {
+			Bitmap bitmap = ((BitmapDrawable) icon).getBitmap();
+			if (bitmap != null) {
+				return new BitmapDrawable(res, scaleToFit(bitmap, size));
+			}
+		}
+		int scaledWidth = size;
+		int scaledHeight = size;
+		if (width > 0 && height > 0) {
+			int longest = Math.max(width, height);
+			scaledWidth = Math.max(1, (int) ((long) width * size / longest));
+			scaledHeight = Math.max(1, (int) ((long) height * size / longest));
+		}
+		Bitmap bitmap = Bitmap.createBitmap(scaledWidth, scaledHeight, Bitmap.Config.ARGB_8888);
+		Canvas canvas = new Canvas(bitmap);
+		icon.setBounds(0, 0, scaledWidth, scaledHeight);
+		icon.draw(canvas);
+		return new BitmapDrawable(res, bitmap);
+	}
+
+	/**
+	 * Sets the sample size and bitmap config after the bounds were decoded.
+	 *
+	 * @return <code>false</code> if the bounds could not be decoded.
+	 */
+	private static boolean prepareOptions(BitmapFactory.Options options, int size) {
+		if (options.outWidth <= 0 || options.outHeight <= 0) {
+			return false;
+		}
+		options.inSampleSize = getSampleSize(options.outWidth, options.outHeight, size);
+		options.inPreferredConfig = MIME_JPEG.equals(options.outMimeType)
+				? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+		options.inJustDecodeBounds = false;
+		return true;
+	}
+
+	/**
+	 * @return The largest power of two that keeps both sides of the image at least <code>size</code>.
+	 */
+	static int getSampleSize(int width, int height, int size) {
+		int sampleSize = 1;
+		while (width / (sampleSize * 2) >= size && height / (sampleSize * 2) >= size) {
+			sampleSize *= 2;
+		}
+		return sampleSize;
+	}
+
+	private static Drawable toDrawable(Resources res, Bitmap bitmap, int size) {
+		if (bitmap == null) {
+			return null;
+		}
+		Bitmap scaled = scaleToFit(bitmap, size);
+		if (scaled != bitmap) {
+			bitmap.recycle();
+		}
+		return new BitmapDrawable(res, scaled);
+	}
+
+	/**
+	 * @return A copy of the bitmap whose longer side is <code>size</code>, or the bitmap itself if it already fits.
+	 */
+	private static Bitmap scaleToFit(Bitmap bitmap, int size) {
+		int width = bitmap.getWidth();
+		int height = bitmap.getHeight();
+		if (width <= size && height <= size) {
+			return bitmap;
+		}
+		int longest = Math.max(width, height);
+		return Bitmap.createScaledBitmap(bitmap, Math.max(1, (int) ((long) width * size / longest)),
+				Math.max(1, (int) ((long) height * size / longest)), true);
+	}
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.os.Handler;
+import android.util.Log;
+import android.view.View;
+
+import com.jrummy.apps.dialogs.EasyDialog.ListItem;
+
+/**
+ * Builds {@link ListItem}s from source records on the shared {@link DialogExecutors} pool and streams
+ * them into the dialog's list as they are ready.
+ * <br><br>
+ * Each item is inserted in sorted position (binary insertion with {@link #getComparator()}), so the
+ * list is usable as soon as the first rows arrive. The horizontal progress bar, if set on the
+ * {@link EasyDialog.Builder}, shows how many sources have been loaded.
+ * <br><br>
+ * Example code:
+ * <br>
+ * <pre>
+ * {@code
+ * new EasyDialog.Builder(context)
+ * .setTitle("Installed Apps")
+ * .setHorizontalProgress(resolves.size(), 0, "Loading app info...")
+ * .setMultiChoiceItems(new ArrayList<ListItem>(), listener)
+ * .setListItemLoader(resolves, new ListItemLoader<ResolveInfo>() {
+ *
+ * 		protected ListItem loadItem(ResolveInfo app) {
+ * 			return new ListItem(app.loadIcon(pm), app.loadLabel(pm).toString());
+ * 		}
+ * 	})
+ *  .show();
+ *
+ * </pre>
+ *
+ * @param <T> The type of the source records.
+ */
+public abstract class ListItemLoader<T> {
+
+	private static final String TAG = "ListItemLoader";
+
+	private final int mThreads;
+	private Comparator<? super ListItem> mComparator = EasyDialog.LIST_ITEM_COMPARATOR;
+
+	/** Set by {@link EasyDialog.Builder#setListItemLoader(java.util.Collection, ListItemLoader)} */
+	List<? extends T> mSources;
+
+	/**
+	 * Creates a loader using one thread per available processor.
+	 */
+	public ListItemLoader() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param threads The max number of threads to load items on. The shared background pool
+	 *                may run fewer at once.
+	 */
+	public ListItemLoader(int threads) {
+		mThreads = Math.max(1, threads);
+	}
+
+	/**
+	 * Sets the order items are inserted in. Set to <code>null</code> to append items in the order they finish.
+	 * Defaults to {@link EasyDialog#LIST_ITEM_COMPARATOR}.
+	 *
+	 * @param comparator
+	 * @return This loader
+	 */
+	public ListItemLoader<T> setComparator(Comparator<? super ListItem> comparator) {
+		mComparator = comparator;
+		return this;
+	}
+
+	/** @return The comparator used to insert items or null. */
+	public Comparator<? super ListItem> getComparator() {
+		return mComparator;
+	}
+
+	/**
+	 * Creates the {@link ListItem} for a source record. Runs on a background thread,
+	 * possibly in parallel with other calls.
+	 *
+	 * @param source The source record
+	 * @return The item to add, or <code>null</code> to skip the source.
+	 * @throws Exception The source is skipped and passed to {@link #onLoadItemFailed(Object, Exception)}.
+	 */
+	protected abstract ListItem loadItem(T source) throws Exception;
+
+	/**
+	 * Called on a background thread when {@link #loadItem(Object)} throws. The source is skipped.
+	 * Logs the error by default.
+	 *
+	 * @param source The source record
+	 * @param e The error thrown by {@link #loadItem(Object)}
+	 */
+	protected void onLoadItemFailed(T source, Exception e) {
+		Log.w(TAG, "Failed to load list item for " + source, e);
+	}
+
+	/**
+	 * Called on the UI thread once every item has been added to the list.
+	 *
+	 * @param dialog The dialog the items were loaded into.
+	 */
+	protected void onLoadFinished(EasyDialog dialog) {
+	}
+
+	/**
+	 * Starts loading items into the dialog's list.
+	 *
+	 * @param dialog  The dialog. Must have list items set.
+	 * @param handler A Handler on the UI thread.
+	 * @return The token that stops the load.
+	 */
+	CancellationToken load(final EasyDialog dialog, Handler handler) {
+		final CancellationToken token = new CancellationToken();
+		final List<? extends T> sources = mSources;
+		final int total = sources.size();
+		final Publisher publisher = new Publisher(dialog, handler, token, total);
+
+		if (total == 0) {
+			// Hides the progress bar and calls onLoadFinished on the UI thread
+			publisher.finish();
+			return token;
+		}
+
+		final int numThreads = Math.min(mThreads, total);
+		final Executor executor = DialogExecutors.getBackgroundExecutor();
+		final AtomicInteger nextIndex = new AtomicInteger();
+		final AtomicInteger runningWorkers = new AtomicInteger(numThreads);
+
+		for (int i = 0; i < numThreads; i++) {
+			executor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					int index;
+					while (!token.isCancelled() && (index = nextIndex.getAndIncrement()) < total) {
+						T source = sources.get(index);
+						ListItem item = null;
+						try {
+							item = loadItem(source);
+						} catch (Exception e) {
+							onLoadItemFailed(source, e);
+						}
+						publisher.publish(item);
+					}
+
+					if (runningWorkers.decrementAndGet() == 0) {
+						publisher.finish();
+					}
+				}
+			});
+		}
+
+		return token;
+	}
+
+	/**
+	 * Collects loaded items from the workers and adds them to the list on the UI thread.
+	 * Only one drain is queued on the UI thread at a time.
+	 */
+	private class Publisher implements Runnable {
+
+		private final EasyDialog mDialog;
+		private final Handler mHandler;
+		private final CancellationToken mToken;
+		private final int mTotal;
+
+		private final ConcurrentLinkedQueue<ListItem> mQueue = new ConcurrentLinkedQueue<ListItem>();
+		private final AtomicInteger mLoaded = new AtomicInteger();
+		private final AtomicBoolean mPending = new AtomicBoolean();
+		private volatile boolean mFinished;
+
+		Publisher(EasyDialog dialog, Handler handler, CancellationToken token, int total) {
+			mDialog = dialog;
+			mHandler = handler;
+			mToken = token;
+			mTotal = total;
+		}
+
+		void publish(ListItem item) {
+			if (item != null) {
+				mQueue.add(item);
+			}
+			mLoaded.incrementAndGet();
+			schedule();
+		}
+
+		void finish() {
+			mFinished = true;
+			schedule();
+		}
+
+		private void schedule() {
+			if (mPending.compareAndSet(false, true)) {
+				mHandler.post(this);
+			}
+		}
+
+		@Override
+		public void run() {
+			mPending.set(false);
+			if (mToken.isCancelled()) {
+				mQueue.clear();
+				return;
+			}
+
+			// Read the flag before draining so no item published before finish() is left behind
+			boolean finished = mFinished;
+
+			List<ListItem> items = mDialog.getListItems();
+			if (items != null) {
+				boolean changed = false;
+				ListItem item;
+				while ((item = mQueue.poll()) != null) {
+					insert(items, item);
+					changed = true;
+				}
+				if (changed) {
+					mDialog.notifyListItemsChanged();
+				}
+			}
+
+			EasyDialog.Builder builder = mDialog.getBuilder();
+			if (builder.mShowHorzProgress) {
+				int loaded = mLoaded.get();
+				mDialog.setProgress(mTotal, loaded);
+				mDialog.updateProgress(mTotal, loaded);
+			}
+
+			if (finished) {
+				if (builder.mShowHorzProgress) {
+					builder.mShowHorzProgress = false;
+					mDialog.setHorizontalProgressVisibility(View.GONE);
+				}
+				onLoadFinished(mDialog);
+			}
+		}
+
+		private void insert(List<ListItem> items, ListItem item) {
+			if (mComparator == null) {
+				items.add(item);
+				return;
+			}
+			int index = Collections.binarySearch(items, item, mComparator);
+			if (index < 0) {
+				index = -index - 1;
+			}
+			items.add(index, item);
+		}
+	}
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import android.content.Context;
+
+import com.jrummy.apps.dialogs.EasyDialog.ListItem;
+
+/**
+ * Saves the text and check state of a dialog's list items to a file in the app's cache directory, so a large
+ * list can be restored after a configuration change or process death without being loaded again and without
+ * putting it in the saved state Bundle.
+ * <br><br>
+ * The items are copied when they are saved and written on the shared background executor. The latest snapshot
+ * is also kept in memory, so restoring in the same process doesn't read the file. Icons and data aren't saved.
+ */
+final class ListItemSnapshot {
+
+	private static final String DIR_NAME = "easydialog-state";
+	private static final String FILE_SUFFIX = ".items";
+	private static final int MAGIC = 0x45444931; // EDI1
+	private static final int HEADER_SIZE = 8;
+	// The flags and both colors
+	private static final int MIN_ITEM_SIZE = 9;
+	private static final long MAX_AGE_MILLIS = 24 * 60 * 60 * 1000L;
+
+	private static final int FLAG_LABEL = 0x01;
+	private static final int FLAG_SUB_LABEL = 0x02;
+	private static final int FLAG_CHECKBOX = 0x04;
+	private static final int FLAG_CHECKED = 0x08;
+
+	private static final Object sLock = new Object();
+	// The latest snapshot, guarded by sLock
+	private static ListItemSnapshot sLatest;
+	private static long sLastId;
+
+	private final String mPath;
+	private final String[] mLabels;
+	private final String[] mSubLabels;
+	private final byte[] mFlags;
+	private final int[] mLabelColors;
+	private final int[] mSubLabelColors;
+
+	private ListItemSnapshot(String path, int size) {
+		mPath = path;
+		mLabels = new String[size];
+		mSubLabels = new String[size];
+		mFlags = new byte[size];
+		mLabelColors = new int[size];
+		mSubLabelColors = new int[size];
+	}
+
+	/**
+	 * Copies the items and writes them to a new file in the background. Called on the UI thread.
+	 *
+	 * @return The path of the file, to be saved in the dialog's state.
+	 */
+	static String save(Context context, List<ListItem> items) {
+		final File dir = new File(context.getCacheDir(), DIR_NAME);
+		final File file;
+		synchronized (sLock) {
+			// Unique in the process and across restarts
+			long id = Math.max(System.currentTimeMillis(), sLastId + 1);
+			sLastId = id;
+			file = new File(dir, id + FILE_SUFFIX);
+		}
+
+		int size = items.size();
+		final ListItemSnapshot snapshot = new ListItemSnapshot(file.getPath(), size);
+		for (int i = 0; i < size; i++) {
+			ListItem item = items.get(i);
+			int flags = 0;
+			if (item.label != null) {
+				flags |= FLAG_LABEL;
+			}
+			if (item.subLabel != null) {
+				flags |= FLAG_SUB_LABEL;
+			}
+			if (item.checked != null) {
+				flags |= item.checked ? FLAG_CHECKBOX | FLAG_CHECKED : FLAG_CHECKBOX;
+			}
+			snapshot.mLabels[i] = item.label;
+			snapshot.mSubLabels[i] = item.subLabel;
+			snapshot.mFlags[i] = (byte) flags;
+			snapshot.mLabelColors[i] = item.labelColor;
+			snapshot.mSubLabelColors[i] = item.subLabelColor;
+		}
+		synchronized (sLock) {
+			sLatest = snapshot;
+		}
+
+		DialogExecutors.getBackgroundExecutor().execute(new Runnable() {
+
+			@Override
+			public void run() {
+				deleteOldFiles(dir);
+				try {
+					snapshot.write(file);
+				} catch (IOException e) {
+					// The items are loaded again on restore
+					file.delete();
+				}
+			}
+		});
+		return file.getPath();
+	}
+
+	/**
+	 * Reads the items saved by {@link #save(Context, List)}. Reads the file unless the snapshot is still in memory.
+	 *
+	 * @param path The path returned by {@link #save(Context, List)}
+	 * @return The items, or <code>null</code> if the file is gone or can't be read.
+	 */
+	static List<ListItem> restore(String path) {
+		ListItemSnapshot snapshot;
+		synchronized (sLock) {
+			snapshot = sLatest != null && sLatest.mPath.equals(path) ? sLatest : null;
+		}
+		if (snapshot == null) {
+			try {
+				snapshot = read(new File(path));
+			} catch (IOException e) {
+				return null;
+			} catch (RuntimeException e) {
+				// A corrupt file, the items are loaded again
+				return null;
+			}
+		}
+		return snapshot.toListItems();
+	}
+
+	private List<ListItem> toListItems() {
+		int size = mFlags.length;
+		List<ListItem> items = new ArrayList<ListItem>(size);
+		for (int i = 0; i < size; i++) {
+			ListItem item = new ListItem();
+			int flags = mFlags[i];
+			item.label = mLabels[i];
+			item.subLabel = mSubLabels[i];
+			if ((flags & FLAG_CHECKBOX) != 0) {
+				item.checked = (flags & FLAG_CHECKED) != 0 ? Boolean.TRUE : Boolean.FALSE;
+			}
+			item.labelColor = mLabelColors[i];
+			item.subLabelColor = mSubLabelColors[i];
+			items.add(item);
+		}
+		return items;
+	}
+
+	private void write(File file) throws IOException {
+		File dir = file.getParentFile();
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Could not create " + dir);
+		}
+		// Written to a temporary file first, so a reader never sees a partial file
+		File tmp = new File(dir, file.getName() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(mFlags.length);
+			for (int i = 0; i < mFlags.length; i++) {
+				int flags = mFlags[i];
+				out.writeByte(flags);
+				if ((flags & FLAG_LABEL) != 0) {
+					out.writeUTF(mLabels[i]);
+				}
+				if ((flags & FLAG_SUB_LABEL) != 0) {
+					out.writeUTF(mSubLabels[i]);
+				}
+				out.writeInt(mLabelColors[i]);
+				out.writeInt(mSubLabelColors[i]);
+			}
+		} finally {
+			out.close();
+		}
+		if (!tmp.renameTo(file)) {
+			tmp.delete();
+			throw new IOException("Could not rename " + tmp);
+		}
+	}
+
+	private static ListItemSnapshot read(File file) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a list item snapshot: " + file);
+			}
+			int size = in.readInt();
+			if (size < 0 || size > (file.length() - HEADER_SIZE) / MIN_ITEM_SIZE) {
+				throw new IOException("Invalid item count " + size + " in " + file);
+			}
+			ListItemSnapshot snapshot = new ListItemSnapshot(file.getPath(), size);
+			for (int i = 0; i < size; i++) {
+				int flags = in.readByte();
+				snapshot.mFlags[i] = (byte) flags;
+				if ((flags & FLAG_LABEL) != 0) {
+					snapshot.mLabels[i] = in.readUTF();
+				}
+				if ((flags & FLAG_SUB_LABEL) != 0) {
+					snapshot.mSubLabels[i] = in.readUTF();
+				}
+				snapshot.mLabelColors[i] = in.readInt();
+				snapshot.mSubLabelColors[i] = in.readInt();
+			}
+			return snapshot;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Deletes the snapshots of dialogs that were never restored.
+	 */
+	private static void deleteOldFiles(File dir) {
+		File[] files = dir.listFiles();
+		if (files == null) {
+			return;
+		}
+		long oldest = System.currentTimeMillis() - MAX_AGE_MILLIS;
+		for (File file : files) {
+			if (file.lastModified() < oldest) {
+				file.delete();
+			}
+		}
+	}
+}
@@ -0,0 +1,371 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.view.View;
+
+import com.jrummy.apps.R;
+import com.jrummy.apps.dialogs.EasyDialog.ListItem;
+
+/**
+ * A list row drawn by a single View.
+ * <br><br>
+ * Draws the same icon, label, sub-label and CheckBox/RadioButton as <code>dialog_list_item.xml</code>
+ * without a view hierarchy. The label and sub-label are kept as {@link StaticLayout}s that are only
+ * rebuilt when the text or the available width changes.
+ *
+ * @see EasyDialog.Builder#setFlatListItemsEnabled(boolean)
+ */
+public class ListItemView extends View {
+
+	/** No CheckBox or RadioButton */
+	public static final int CHECK_NONE = 0;
+	/** Shows a CheckBox */
+	public static final int CHECK_BOX = 1;
+	/** Shows a RadioButton */
+	public static final int CHECK_RADIO = 2;
+
+	private static final int[] CHECKED_STATE_SET = { android.R.attr.state_enabled, android.R.attr.state_checked };
+	private static final int[] UNCHECKED_STATE_SET = { android.R.attr.state_enabled };
+
+	// Sizes from dialog_dimens.xml, shared with dialog_list_item.xml
+	private final int mIconSize;
+	private final int mIconMargin;
+	private final int mLabelMargin;
+	private final int mSubLabelMargin;
+	private final int mLabelPadding;
+	private final int mSubLabelPadding;
+
+	private final TextPaint mLabelPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+	private final TextPaint mSubLabelPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+
+	private int mTextColor;
+	private int mCheckBoxDrawableId;
+	private int mRadioButtonDrawableId;
+	private Drawable mCheckBoxDrawable;
+	private Drawable mRadioButtonDrawable;
+
+	private Drawable mIcon;
+	private String mLabel;
+	private String mSubLabel;
+	private int mCheckMode = CHECK_NONE;
+	private boolean mChecked;
+
+	private StaticLayout mLabelLayout;
+	private StaticLayout mSubLabelLayout;
+	private int mLayoutWidth = -1;
+
+	private TextLayoutCache mLayoutCache;
+	private long mItemId;
+
+	public ListItemView(Context context) {
+		super(context);
+		Resources res = context.getResources();
+		mIconSize = res.getDimensionPixelSize(R.dimen.dialog_list_item_icon_size);
+		mIconMargin = res.getDimensionPixelSize(R.dimen.dialog_list_item_icon_margin);
+		mLabelMargin = res.getDimensionPixelSize(R.dimen.dialog_list_item_label_margin);
+		mSubLabelMargin = res.getDimensionPixelSize(R.dimen.dialog_list_item_sub_label_margin);
+		mLabelPadding = res.getDimensionPixelSize(R.dimen.dialog_list_item_label_padding);
+		mSubLabelPadding = res.getDimensionPixelSize(R.dimen.dialog_list_item_sub_label_padding);
+		mLabelPaint.setTextSize(res.getDimension(R.dimen.dialog_list_item_label_text_size));
+		mSubLabelPaint.setTextSize(res.getDimension(R.dimen.dialog_list_item_sub_label_text_size));
+		mTextColor = res.getColor(R.color.dark_theme_text);
+	}
+
+	/**
+	 * Sets the default color of the label and sub-label.
+	 * @param color
+	 */
+	public void setTextColor(int color) {
+		mTextColor = color;
+	}
+
+	/**
+	 * Sets the typeface of the label and sub-label.
+	 * @param typeface
+	 */
+	public void setTypeface(Typeface typeface) {
+		if (typeface != mLabelPaint.getTypeface()) {
+			mLabelPaint.setTypeface(typeface);
+			mSubLabelPaint.setTypeface(typeface);
+			if (mLayoutCache != null) {
+				mLayoutCache.setPaints(mLabelPaint, mSubLabelPaint);
+			}
+			invalidateLayouts();
+		}
+	}
+
+	/**
+	 * @param resId The resource id of the CheckBox button drawable
+	 */
+	public void setCheckBoxDrawable(int resId) {
+		if (resId != mCheckBoxDrawableId) {
+			mCheckBoxDrawableId = resId;
+			mCheckBoxDrawable = loadDrawable(resId);
+		}
+	}
+
+	/**
+	 * @param resId The resource id of the RadioButton button drawable
+	 */
+	public void setRadioButtonDrawable(int resId) {
+		if (resId != mRadioButtonDrawableId) {
+			mRadioButtonDrawableId = resId;
+			mRadioButtonDrawable = loadDrawable(resId);
+		}
+	}
+
+	/**
+	 * Sets the cache the label and sub-label layouts are taken from.
+	 * @param cache The cache or <code>null</code> to build layouts for this view only.
+	 */
+	public void setTextLayoutCache(TextLayoutCache cache) {
+		mLayoutCache = cache;
+		if (cache != null) {
+			cache.setPaints(mLabelPaint, mSubLabelPaint);
+		}
+		invalidateLayouts();
+	}
+
+	/**
+	 * Binds the item to this view.
+	 *
+	 * @param item      The list item
+	 * @param checkMode One of {@link #CHECK_NONE}, {@link #CHECK_BOX} or {@link #CHECK_RADIO}
+	 */
+	public void setItem(ListItem item, int checkMode) {
+		boolean shapeChanged = (mIcon == null) != (item.icon == null)
+				|| (mSubLabel == null) != (item.subLabel == null)
+				|| mCheckMode != checkMode;
+
+		if (!TextUtils.equals(mLabel, item.label)) {
+			mLabel = item.label;
+			mLabelLayout = null;
+		}
+		if (!TextUtils.equals(mSubLabel, item.subLabel)) {
+			mSubLabel = item.subLabel;
+			mSubLabelLayout = null;
+		}
+
+		mItemId = item.id;
+		mIcon = item.icon;
+		mCheckMode = checkMode;
+		mChecked = item.checked != null && item.checked;
+		mLabelPaint.setColor(item.labelColor == -1 ? mTextColor : item.labelColor);
+		mSubLabelPaint.setColor(item.subLabelColor == -1 ? mTextColor : item.subLabelColor);
+		setContentDescription(item.label);
+
+		if (shapeChanged) {
+			invalidateLayouts();
+		} else {
+			invalidate();
+		}
+	}
+
+	private Drawable loadDrawable(int resId) {
+		if (resId == 0) {
+			return null;
+		}
+		Drawable drawable = getResources().getDrawable(resId);
+		drawable.setBounds(0, 0, drawable.getIntrinsicWidth(), drawable.getIntrinsicHeight());
+		return drawable;
+	}
+
+	private Drawable getCheckDrawable() {
+		return getCheckDrawable(mCheckMode);
+	}
+
+	private Drawable getCheckDrawable(int checkMode) {
+		switch (checkMode) {
+		case CHECK_BOX:
+			return mCheckBoxDrawable;
+		case CHECK_RADIO:
+			return mRadioButtonDrawable;
+		default:
+			return null;
+		}
+	}
+
+	private void invalidateLayouts() {
+		mLabelLayout = null;
+		mSubLabelLayout = null;
+		mLayoutWidth = -1;
+		requestLayout();
+		invalidate();
+	}
+
+	private int getTextLeft() {
+		return getTextLeft(mIcon != null);
+	}
+
+	private int getTextLeft(boolean hasIcon) {
+		return (hasIcon ? mIconMargin + mIconSize : 0) + getPaddingLeft();
+	}
+
+	private int getTextRight(int width) {
+		return getTextRight(width, mCheckMode);
+	}
+
+	private int getTextRight(int width, int checkMode) {
+		Drawable check = getCheckDrawable(checkMode);
+		return width - getPaddingRight() - (check != null ? check.getIntrinsicWidth() : 0);
+	}
+
+	/**
+	 * @return The index into the arrays returned by {@link #getTextWidths(int, boolean)} for a row's shape.
+	 */
+	static int getWidthIndex(boolean hasIcon, int checkMode) {
+		return checkMode * 2 + (hasIcon ? 1 : 0);
+	}
+
+	/**
+	 * Computes the layout widths of the label or sub-label in a row of the given width
+	 * for every combination of icon and check mode.
+	 *
+	 * @param width    The width of the row
+	 * @param subLabel <code>true</code> for the sub-label widths
+	 * @return The widths indexed by {@link #getWidthIndex(boolean, int)}
+	 */
+	int[] getTextWidths(int width, boolean subLabel) {
+		int[] widths = new int[6];
+		int margin = subLabel ? mSubLabelMargin : mLabelMargin;
+		for (int checkMode = CHECK_NONE; checkMode <= CHECK_RADIO; checkMode++) {
+			for (int icon = 0; icon < 2; icon++) {
+				int textWidth = Math.max(0, getTextRight(width, checkMode) - getTextLeft(icon == 1));
+				widths[getWidthIndex(icon == 1, checkMode)] = Math.max(0, textWidth - margin);
+			}
+		}
+		return widths;
+	}
+
+	/**
+	 * Builds the text layouts for the given view width, reusing the cached layouts if nothing changed.
+	 */
+	private void ensureLayouts(int width) {
+		int textWidth = Math.max(0, getTextRight(width) - getTextLeft());
+		if (textWidth != mLayoutWidth) {
+			mLayoutWidth = textWidth;
+			mLabelLayout = null;
+			mSubLabelLayout = null;
+		}
+		if (mLabelLayout == null && mLabel != null) {
+			mLabelLayout = obtainLayout(false, mLabel, mLabelPaint, textWidth - mLabelMargin);
+		}
+		if (mSubLabelLayout == null && mSubLabel != null) {
+			mSubLabelLayout = obtainLayout(true, mSubLabel, mSubLabelPaint, textWidth - mSubLabelMargin);
+		}
+	}
+
+	private StaticLayout obtainLayout(boolean subLabel, String text, TextPaint paint, int width) {
+		if (mLayoutCache != null) {
+			return mLayoutCache.getLayout(mItemId, subLabel, text, Math.max(0, width));
+		}
+		return makeLayout(text, paint, width);
+	}
+
+	static StaticLayout makeLayout(String text, TextPaint paint, int width) {
+		width = Math.max(0, width);
+		// Single line, like android:singleLine in the row layout
+		CharSequence line = TextUtils.ellipsize(text.replace('\n', ' '), paint, width, TextUtils.TruncateAt.END);
+		return new StaticLayout(line, paint, width, Layout.Alignment.ALIGN_NORMAL, 1f, 0f, true);
+	}
+
+	private int getTextHeight() {
+		int height = 0;
+		if (mLabelLayout != null) {
+			height += mLabelLayout.getHeight() + mLabelPadding * 2;
+		}
+		if (mSubLabelLayout != null) {
+			height += mSubLabelLayout.getHeight() + mSubLabelPadding;
+		}
+		return height;
+	}
+
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		int width = MeasureSpec.getSize(widthMeasureSpec);
+		if (MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.UNSPECIFIED) {
+			Drawable check = getCheckDrawable();
+			width = getTextLeft() + mLabelMargin + getPaddingRight()
+					+ (mLabel != null ? (int) Math.ceil(mLabelPaint.measureText(mLabel)) : 0)
+					+ (check != null ? check.getIntrinsicWidth() : 0);
+		}
+		ensureLayouts(width);
+
+		Drawable check = getCheckDrawable();
+		int height = Math.max(getTextHeight(), mIcon != null ? mIconSize : 0);
+		height = Math.max(height, check != null ? check.getIntrinsicHeight() : 0);
+		height += getPaddingTop() + getPaddingBottom();
+
+		setMeasuredDimension(width, resolveSize(height, heightMeasureSpec));
+	}
+
+	@Override
+	protected void onDraw(Canvas canvas) {
+		int width = getWidth();
+		int height = getHeight();
+		ensureLayouts(width);
+
+		if (mIcon != null) {
+			int left = getPaddingLeft() + mIconMargin;
+			int top = (height - mIconSize) / 2;
+			mIcon.setBounds(left, top, left + mIconSize, top + mIconSize);
+			mIcon.draw(canvas);
+		}
+
+		Drawable check = getCheckDrawable();
+		if (check != null) {
+			check.setState(mChecked ? CHECKED_STATE_SET : UNCHECKED_STATE_SET);
+			int left = width - getPaddingRight() - check.getIntrinsicWidth();
+			int top = (height - check.getIntrinsicHeight()) / 2;
+			canvas.save();
+			canvas.translate(left, top);
+			check.draw(canvas);
+			canvas.restore();
+		}
+
+		int textLeft = getTextLeft();
+		int top = (height - getTextHeight()) / 2;
+		if (mLabelLayout != null) {
+			top += mLabelPadding;
+			canvas.save();
+			canvas.translate(textLeft + mLabelMargin, top);
+			// Cached layouts have their own paint
+			mLabelLayout.getPaint().setColor(mLabelPaint.getColor());
+			mLabelLayout.draw(canvas);
+			canvas.restore();
+			top += mLabelLayout.getHeight() + mLabelPadding;
+		}
+		if (mSubLabelLayout != null) {
+			canvas.save();
+			canvas.translate(textLeft + mSubLabelMargin, top);
+			mSubLabelLayout.getPaint().setColor(mSubLabelPaint.getColor());
+			mSubLabelLayout.draw(canvas);
+			canvas.restore();
+		}
+	}
+}
@@ -0,0 +1,386 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import android.content.Context;
+import android.graphics.Typeface;
+import android.os.Handler;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+import com.jrummy.apps.R;
+
+/**
+ * Shows very long text as a list of paragraphs, so only the paragraphs on screen are laid out.
+ * <br><br>
+ * The text is split by {@link ParagraphSplitter} on a background thread and paragraphs are added
+ * to the list as they are read. Text from a {@link Reader} is kept as one String per paragraph.
+ * Text from a {@link File} is only indexed; paragraphs are read from the file when they are shown.
+ *
+ * @see EasyDialog.Builder#setLongMessage(File)
+ */
+public class LongMessageAdapter extends BaseAdapter {
+
+	private static final String TAG = "LongMessageAdapter";
+	private static final int DECODED_CACHE_SIZE = 64;
+
+	private final LayoutInflater mInflater;
+	private final Handler mHandler;
+	private Typeface mTypeface;
+
+	// Paragraphs of text from a Reader
+	private final List<String> mParagraphs = new ArrayList<String>();
+
+	// Byte ranges of the paragraphs of a File
+	private File mFile;
+	private RandomAccessFile mRandomAccessFile;
+	private long[] mStarts = new long[0];
+	private int[] mLengths = new int[0];
+	private int mRangeCount;
+
+	private final Map<Integer, String> mDecoded = new LinkedHashMap<Integer, String>(DECODED_CACHE_SIZE, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+			return size() > DECODED_CACHE_SIZE;
+		}
+	};
+
+	// Read on the background thread, not yet added to the list
+	private final Object mLock = new Object();
+	private final List<String> mPendingParagraphs = new ArrayList<String>();
+	private long[] mPendingStarts = new long[256];
+	private int[] mPendingLengths = new int[256];
+	private int mPendingRangeCount;
+	private final AtomicBoolean mDrainPending = new AtomicBoolean();
+
+	private CancellationToken mToken;
+	private boolean mLoaded;
+
+	/**
+	 * @param context The dialog's context
+	 * @param handler A Handler on the UI thread
+	 */
+	public LongMessageAdapter(Context context, Handler handler) {
+		mInflater = LayoutInflater.from(context);
+		mHandler = handler;
+	}
+
+	public void setTypeface(Typeface typeface) {
+		mTypeface = typeface;
+	}
+
+	/**
+	 * Reads the text on the executor. The reader is closed when done.
+	 *
+	 * @param executor The executor to read on
+	 * @param reader   The text
+	 * @return The token that stops reading.
+	 */
+	public CancellationToken load(Executor executor, final Reader reader) {
+		final CancellationToken token = startLoad();
+		executor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					ParagraphSplitter.split(reader, new ParagraphSplitter.TextCallback() {
+
+						@Override
+						public boolean onParagraph(String text) {
+							if (token.isCancelled()) {
+								return false;
+							}
+							synchronized (mLock) {
+								mPendingParagraphs.add(text);
+							}
+							scheduleDrain();
+							return true;
+						}
+					});
+					onLoaded(token);
+				} catch (IOException e) {
+					// The paragraphs read so far stay in the list
+					Log.w(TAG, "Failed to read the long message", e);
+				} finally {
+					try {
+						reader.close();
+					} catch (IOException e) {
+					}
+				}
+			}
+		});
+		return token;
+	}
+
+	/**
+	 * Indexes the UTF-8 text file on the executor.
+	 *
+	 * @param executor The executor to read on
+	 * @param file     The text file
+	 * @return The token that stops reading.
+	 */
+	public CancellationToken load(Executor executor, final File file) {
+		final CancellationToken token = startLoad();
+		mFile = file;
+		executor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				InputStream in = null;
+				try {
+					in = new BufferedInputStream(new FileInputStream(file));
+					ParagraphSplitter.index(in, new ParagraphSplitter.RangeCallback() {
+
+						@Override
+						public boolean onParagraph(long start, int length) {
+							if (token.isCancelled()) {
+								return false;
+							}
+							synchronized (mLock) {
+								if (mPendingRangeCount == mPendingStarts.length) {
+									mPendingStarts = grow(mPendingStarts);
+									mPendingLengths = grow(mPendingLengths);
+								}
+								mPendingStarts[mPendingRangeCount] = start;
+								mPendingLengths[mPendingRangeCount] = length;
+								mPendingRangeCount++;
+							}
+							scheduleDrain();
+							return true;
+						}
+					});
+					onLoaded(token);
+				} catch (IOException e) {
+					// The paragraphs indexed so far stay in the list
+					Log.w(TAG, "Failed to index " + file, e);
+				} finally {
+					if (in != null) {
+						try {
+							in.close();
+						} catch (IOException e) {
+						}
+					}
+				}
+			}
+		});
+		return token;
+	}
+
+	private CancellationToken startLoad() {
+		close();
+		mParagraphs.clear();
+		mRangeCount = 0;
+		mDecoded.clear();
+		mFile = null;
+		synchronized (mLock) {
+			mPendingParagraphs.clear();
+			mPendingRangeCount = 0;
+		}
+		mLoaded = false;
+		mToken = new CancellationToken();
+		notifyDataSetChanged();
+		return mToken;
+	}
+
+	private void onLoaded(final CancellationToken token) {
+		mHandler.post(new Runnable() {
+
+			@Override
+			public void run() {
+				if (mToken == token && !token.isCancelled()) {
+					mLoaded = true;
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return <code>true</code> if the whole text was read. <code>false</code> while reading
+	 *         or if reading was stopped by {@link #close()}.
+	 */
+	public boolean isLoaded() {
+		return mLoaded;
+	}
+
+	/**
+	 * @return <code>true</code> while the text is being read.
+	 */
+	public boolean isLoading() {
+		return mToken != null && !mLoaded;
+	}
+
+	/**
+	 * Stops reading and closes the file. Paragraphs that were already read are kept
+	 * and the file is opened again if they are shown.
+	 */
+	public void close() {
+		if (mToken != null) {
+			mToken.cancel();
+			mToken = null;
+		}
+		if (mRandomAccessFile != null) {
+			try {
+				mRandomAccessFile.close();
+			} catch (IOException e) {
+			}
+			mRandomAccessFile = null;
+		}
+	}
+
+	private void scheduleDrain() {
+		if (mDrainPending.compareAndSet(false, true)) {
+			mHandler.post(mDrain);
+		}
+	}
+
+	private final Runnable mDrain = new Runnable() {
+
+		@Override
+		public void run() {
+			mDrainPending.set(false);
+			synchronized (mLock) {
+				if (mPendingParagraphs.isEmpty() && mPendingRangeCount == 0) {
+					return;
+				}
+				mParagraphs.addAll(mPendingParagraphs);
+				mPendingParagraphs.clear();
+				if (mPendingRangeCount > 0) {
+					int count = mRangeCount + mPendingRangeCount;
+					if (count > mStarts.length) {
+						int capacity = Math.max(count, mStarts.length * 2);
+						mStarts = copyOf(mStarts, capacity);
+						mLengths = copyOf(mLengths, capacity);
+					}
+					System.arraycopy(mPendingStarts, 0, mStarts, mRangeCount, mPendingRangeCount);
+					System.arraycopy(mPendingLengths, 0, mLengths, mRangeCount, mPendingRangeCount);
+					mRangeCount = count;
+					mPendingRangeCount = 0;
+				}
+			}
+			notifyDataSetChanged();
+		}
+	};
+
+	@Override
+	public int getCount() {
+		return mFile != null ? mRangeCount : mParagraphs.size();
+	}
+
+	@Override
+	public String getItem(int position) {
+		if (mFile == null) {
+			return mParagraphs.get(position);
+		}
+		String text = mDecoded.get(position);
+		if (text == null) {
+			text = readParagraph(position);
+			mDecoded.put(position, text);
+		}
+		return text;
+	}
+
+	/**
+	 * Reads one paragraph from the file. Paragraphs are a few KB at most, so this is a short read.
+	 */
+	private String readParagraph(int position) {
+		int length = mLengths[position];
+		if (length == 0) {
+			return "";
+		}
+		try {
+			if (mRandomAccessFile == null) {
+				mRandomAccessFile = new RandomAccessFile(mFile, "r");
+			}
+			byte[] bytes = new byte[length];
+			mRandomAccessFile.seek(mStarts[position]);
+			mRandomAccessFile.readFully(bytes);
+			return ParagraphSplitter.decode(bytes, 0, length);
+		} catch (IOException e) {
+			Log.w(TAG, "Failed to read paragraph " + position + " of " + mFile, e);
+			return "";
+		}
+	}
+
+	@Override
+	public long getItemId(int position) {
+		return position;
+	}
+
+	@Override
+	public boolean areAllItemsEnabled() {
+		return false;
+	}
+
+	@Override
+	public boolean isEnabled(int position) {
+		return false;
+	}
+
+	@Override
+	public View getView(int position, View convertView, ViewGroup parent) {
+		TextView textView = (TextView) convertView;
+		if (textView == null) {
+			textView = (TextView) mInflater.inflate(R.layout.dialog_message_paragraph, parent, false);
+			if (mTypeface != null) {
+				textView.setTypeface(mTypeface);
+			}
+		}
+		textView.setText(getItem(position));
+		return textView;
+	}
+
+	private static long[] grow(long[] array) {
+		return copyOf(array, array.length * 2);
+	}
+
+	private static int[] grow(int[] array) {
+		return copyOf(array, array.length * 2);
+	}
+
+	private static long[] copyOf(long[] array, int length) {
+		long[] copy = new long[length];
+		System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+		return copy;
+	}
+
+	private static int[] copyOf(int[] array, int length) {
+		int[] copy = new int[length];
+		System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+		return copy;
+	}
+}
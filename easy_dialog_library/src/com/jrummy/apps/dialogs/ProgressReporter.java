@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.os.Handler;
+
+/**
+ * Reports progress from a background thread to the dialog's horizontal progress bar.
+ * <br><br>
+ * Updates are coalesced: the worker only writes the latest values and at most one
+ * update is queued on the UI thread at a time, no matter how often the methods are called.
+ *
+ * @see EasyDialogTask
+ */
+public class ProgressReporter {
+
+	private final EasyDialog mDialog;
+	private final Handler mHandler;
+
+	private final AtomicInteger mMax;
+	private final AtomicInteger mProgress;
+	private volatile String mMessage;
+	private String mAppliedMessage;
+
+	private final AtomicBoolean mPending = new AtomicBoolean();
+
+	ProgressReporter(EasyDialog dialog, Handler handler, int max, int progress) {
+		mDialog = dialog;
+		mHandler = handler;
+		mMax = new AtomicInteger(max);
+		mProgress = new AtomicInteger(progress);
+	}
+
+	/**
+	 * Sets the max value of the progress bar.
+	 * @param max
+	 */
+	public void setMax(int max) {
+		mMax.set(max);
+		schedule();
+	}
+
+	/**
+	 * Sets the current progress.
+	 * @param progress
+	 */
+	public void setProgress(int progress) {
+		mProgress.set(progress);
+		schedule();
+	}
+
+	/**
+	 * Increments the current progress.
+	 * @param diff The value to increment
+	 */
+	public void incrementProgressBy(int diff) {
+		mProgress.addAndGet(diff);
+		schedule();
+	}
+
+	/**
+	 * Sets the message right under the progress bar.
+	 * @param message
+	 */
+	public void setMessage(String message) {
+		mMessage = message;
+		schedule();
+	}
+
+	/** @return The latest progress value, which may not have been drawn yet. */
+	public int getProgress() {
+		return mProgress.get();
+	}
+
+	/** @return The latest max value, which may not have been drawn yet. */
+	public int getMax() {
+		return mMax.get();
+	}
+
+	private void schedule() {
+		if (mPending.compareAndSet(false, true)) {
+			mHandler.post(mApplyProgress);
+		}
+	}
+
+	private final Runnable mApplyProgress = new Runnable() {
+
+		@Override
+		public void run() {
+			// Clear the flag first so values written while we apply these get their own post.
+			mPending.set(false);
+			int max = mMax.get();
+			int progress = mProgress.get();
+			mDialog.setProgress(max, progress);
+			mDialog.updateProgress(max, progress);
+			String message = mMessage;
+			if (message != null && !message.equals(mAppliedMessage)) {
+				mAppliedMessage = message;
+				mDialog.updateProgressMessage(message);
+			}
+		}
+	};
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import android.graphics.Typeface;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.util.LruCache;
+
+import com.jrummy.apps.dialogs.EasyDialog.ListItem;
+
+/**
+ * A bounded cache of the label and sub-label {@link StaticLayout}s drawn by {@link ListItemView}.
+ * <br><br>
+ * Layouts are keyed by the item's id, the text and the width they were measured for. They can be
+ * built ahead of time on a background thread with {@link #precompute(List, int[], int[], int[], Executor)},
+ * so binding a row only has to look the layout up.
+ * <br><br>
+ * Every layout has its own copy of the paint, so the text color can be set when drawing.
+ *
+ * @see EasyDialog.Builder#setPrecomputedTextEnabled(boolean)
+ */
+public class TextLayoutCache {
+
+	/** The default number of layouts kept in the cache */
+	public static final int DEFAULT_MAX_SIZE = 500;
+
+	private final LruCache<Key, StaticLayout> mLayouts;
+
+	private volatile TextPaint mLabelPaint;
+	private volatile TextPaint mSubLabelPaint;
+
+	/** Guards {@link #mGeneration} so a precompute can't add a layout after the paints changed */
+	private final Object mLock = new Object();
+	/** Incremented each time the paints change */
+	private int mGeneration;
+
+	private CancellationToken mPrecomputeToken;
+
+	/**
+	 * @param maxSize The max number of layouts to keep. Each item with a sub-label uses two.
+	 */
+	public TextLayoutCache(int maxSize) {
+		mLayouts = new LruCache<Key, StaticLayout>(maxSize);
+	}
+
+	/**
+	 * Sets the paints layouts are measured with. Clears the cache if the text size or typeface changed.
+	 * Called by {@link ListItemView} on the UI thread.
+	 */
+	void setPaints(TextPaint labelPaint, TextPaint subLabelPaint) {
+		if (isSamePaint(mLabelPaint, labelPaint) && isSamePaint(mSubLabelPaint, subLabelPaint)) {
+			return;
+		}
+		cancelPrecompute();
+		synchronized (mLock) {
+			mGeneration++;
+			mLabelPaint = new TextPaint(labelPaint);
+			mSubLabelPaint = new TextPaint(subLabelPaint);
+			mLayouts.evictAll();
+		}
+	}
+
+	private static boolean isSamePaint(TextPaint cached, TextPaint paint) {
+		if (cached == null) {
+			return false;
+		}
+		Typeface typeface = paint.getTypeface();
+		return cached.getTextSize() == paint.getTextSize() && cached.getTypeface() == typeface;
+	}
+
+	/**
+	 * Returns the cached layout for the text, building and caching it if needed.
+	 *
+	 * @param id       The id of the {@link ListItem}
+	 * @param subLabel <code>true</code> if the text is the item's sub-label
+	 * @param text     The text
+	 * @param width    The width of the layout
+	 * @return The layout.
+	 */
+	StaticLayout getLayout(long id, boolean subLabel, String text, int width) {
+		Key key = new Key(id, subLabel, text, width);
+		StaticLayout layout = mLayouts.get(key);
+		if (layout == null) {
+			layout = makeLayout(key);
+			mLayouts.put(key, layout);
+		}
+		return layout;
+	}
+
+	private StaticLayout makeLayout(Key key) {
+		return makeLayout(key, mLabelPaint, mSubLabelPaint);
+	}
+
+	private static StaticLayout makeLayout(Key key, TextPaint labelPaint, TextPaint subLabelPaint) {
+		TextPaint paint = new TextPaint(key.mSubLabel ? subLabelPaint : labelPaint);
+		return ListItemView.makeLayout(key.mText, paint, key.mWidth);
+	}
+
+	/**
+	 * Builds the layouts of the items on the executor, stopping once the cache is full.
+	 * Any previous precompute is stopped.
+	 *
+	 * @param items          The items. The list is copied.
+	 * @param labelWidths    The label widths, indexed by {@link ListItemView#getWidthIndex(boolean, int)}
+	 * @param subLabelWidths The sub-label widths, indexed the same way
+	 * @param checkModes     The check mode of each item
+	 * @param executor       The executor to build the layouts on
+	 */
+	void precompute(List<ListItem> items, final int[] labelWidths, final int[] subLabelWidths,
+			final int[] checkModes, Executor executor) {
+		cancelPrecompute();
+		if (mLabelPaint == null) {
+			return;
+		}
+
+		final CancellationToken token = new CancellationToken();
+		final ListItem[] snapshot = items.toArray(new ListItem[items.size()]);
+		final int generation;
+		final TextPaint labelPaint;
+		final TextPaint subLabelPaint;
+		synchronized (mLock) {
+			generation = mGeneration;
+			labelPaint = mLabelPaint;
+			subLabelPaint = mSubLabelPaint;
+		}
+		mPrecomputeToken = token;
+
+		executor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				int room = mLayouts.maxSize();
+				for (int i = 0; i < snapshot.length && room > 0 && !token.isCancelled(); i++) {
+					ListItem item = snapshot[i];
+					int index = ListItemView.getWidthIndex(item.icon != null, checkModes[i]);
+					if (item.label != null) {
+						Key key = new Key(item.id, false, item.label, labelWidths[index]);
+						if (!precompute(key, generation, labelPaint, subLabelPaint)) {
+							return;
+						}
+						room--;
+					}
+					if (item.subLabel != null) {
+						Key key = new Key(item.id, true, item.subLabel, subLabelWidths[index]);
+						if (!precompute(key, generation, labelPaint, subLabelPaint)) {
+							return;
+						}
+						room--;
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Builds and caches a layout with the paints of the given generation.
+	 *
+	 * @return <code>false</code> if the paints changed, so the layout was dropped.
+	 */
+	private boolean precompute(Key key, int generation, TextPaint labelPaint, TextPaint subLabelPaint) {
+		if (mLayouts.get(key) != null) {
+			return true;
+		}
+		StaticLayout layout = makeLayout(key, labelPaint, subLabelPaint);
+		synchronized (mLock) {
+			if (generation != mGeneration) {
+				return false;
+			}
+			mLayouts.put(key, layout);
+		}
+		return true;
+	}
+
+	/**
+	 * Stops a running {@link #precompute(List, int[], int[], int[], Executor)}.
+	 */
+	public void cancelPrecompute() {
+		if (mPrecomputeToken != null) {
+			mPrecomputeToken.cancel();
+			mPrecomputeToken = null;
+		}
+	}
+
+	/**
+	 * Removes every layout from the cache.
+	 */
+	public void clear() {
+		mLayouts.evictAll();
+	}
+
+	private static final class Key {
+
+		final long mId;
+		final boolean mSubLabel;
+		final String mText;
+		final int mWidth;
+
+		Key(long id, boolean subLabel, String text, int width) {
+			mId = id;
+			mSubLabel = subLabel;
+			mText = text;
+			mWidth = width;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) o;
+			return mId == key.mId && mSubLabel == key.mSubLabel && mWidth == key.mWidth && mText.equals(key.mText);
+		}
+
+		@Override
+		public int hashCode() {
+			int result = (int) (mId ^ (mId >>> 32));
+			result = 31 * result + (mSubLabel ? 1 : 0);
+			result = 31 * result + mWidth;
+			return 31 * result + mText.hashCode();
+		}
+	}
+}
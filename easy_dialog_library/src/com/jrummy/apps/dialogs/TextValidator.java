@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+/**
+ * Checks the text of the dialog's EditText in the background.
+ * <br><br>
+ * After the user stops typing for the Builder's delay, {@link #validate(CancellationToken, String)} runs on the
+ * Builder's Executor. The positive button is disabled from the first keystroke until the text is valid, and the
+ * error is shown on the EditText. A run whose text was changed since it started is canceled and its result is
+ * ignored, so a slow validator never blocks typing.
+ * <br><br>
+ * Example code:
+ * <br>
+ * <pre>
+ * {@code
+ * new EasyDialog.Builder(context)
+ * .setTitle("Rename")
+ * .setEditText(name, "File name", null)
+ * .setEditTextValidator(new TextValidator() {
+ *
+ * 		protected CharSequence validate(CancellationToken token, String text) {
+ * 			if (text.length() == 0) {
+ * 				return "Enter a name";
+ * 			}
+ * 			return new File(dir, text).exists() ? "A file with this name already exists" : null;
+ * 		}
+ * 	})
+ * .setPositiveButton("Rename", listener)
+ * .show();
+ * }
+ * </pre>
+ *
+ * @see EasyDialog.Builder#setEditTextValidator(java.util.concurrent.Executor, long, TextValidator)
+ */
+public abstract class TextValidator {
+
+	/**
+	 * Runs on a background thread.
+	 *
+	 * @param token Canceled when the text changes or the dialog is dismissed.
+	 * @param text  The text of the EditText
+	 * @return <code>null</code> if the text is valid, or the error to show on the EditText.
+	 * @throws Exception If the text can't be checked. The exception is logged, the positive button stays disabled
+	 *                   and a generic error is shown on the EditText.
+	 */
+	protected abstract CharSequence validate(CancellationToken token, String text) throws Exception;
+}
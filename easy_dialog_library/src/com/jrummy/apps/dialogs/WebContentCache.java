@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import android.content.res.AssetManager;
+import android.util.LruCache;
+import android.webkit.MimeTypeMap;
+import android.webkit.WebResourceResponse;
+
+/**
+ * A process-wide LRU cache of the content shown in WebView dialogs.
+ * <br><br>
+ * {@link DialogWebViewClient} serves <code>file:///android_asset/</code> pages, and the assets they
+ * reference, from this cache through <code>shouldInterceptRequest</code>, so opening the same dialog
+ * again doesn't read the asset again. Inline HTML is loaded directly and never depends on the cache.
+ * <br><br>
+ * If an asset doesn't exist, the same path with a <code>.gz</code> suffix is tried. Precompressed assets are
+ * decompressed as a stream while the WebView reads them, which saves APK space and I/O for large pages.
+ */
+public final class WebContentCache {
+
+	/** The prefix of urls that load from the app's assets */
+	public static final String ASSET_URL_PREFIX = "file:///android_asset/";
+
+	private static final String GZIP_SUFFIX = ".gz";
+	private static final String DEFAULT_MIME_TYPE = "text/html";
+	private static final String ENCODING = "UTF-8";
+	private static final int DEFAULT_MAX_SIZE = 1024 * 1024;
+
+	private static WebContentCache sInstance;
+
+	private final LruCache<String, byte[]> mCache;
+	private final int mMaxEntrySize;
+
+	/**
+	 * @return The shared cache.
+	 */
+	public static synchronized WebContentCache getInstance() {
+		if (sInstance == null) {
+			sInstance = new WebContentCache(DEFAULT_MAX_SIZE);
+		}
+		return sInstance;
+	}
+
+	/**
+	 * Replaces the shared cache with an empty cache of the given size.
+	 *
+	 * @param maxSize The max number of bytes to keep in memory.
+	 */
+	public static synchronized void setMaxSize(int maxSize) {
+		sInstance = new WebContentCache(maxSize);
+	}
+
+	private WebContentCache(int maxSize) {
+		mMaxEntrySize = maxSize / 4;
+		mCache = new LruCache<String, byte[]>(maxSize) {
+
+			@Override
+			protected int sizeOf(String key, byte[] value) {
+				return value.length;
+			}
+		};
+	}
+
+	/**
+	 * Returns the response for a url, or <code>null</code> to let the WebView load it.
+	 * Called on the WebView's loading thread.
+	 *
+	 * @param assets The AssetManager to read assets from
+	 * @param url    The requested url
+	 * @return The response or <code>null</code>
+	 */
+	public WebResourceResponse getResponse(AssetManager assets, String url) {
+		if (!url.startsWith(ASSET_URL_PREFIX)) {
+			return null;
+		}
+
+		String mimeType = getMimeType(url);
+		byte[] data = mCache.get(url);
+		if (data != null) {
+			return new WebResourceResponse(mimeType, ENCODING, new ByteArrayInputStream(data));
+		}
+
+		InputStream in = openAsset(assets, url.substring(ASSET_URL_PREFIX.length()));
+		if (in == null) {
+			return null;
+		}
+		return new WebResourceResponse(mimeType, ENCODING, new CachingInputStream(url, in));
+	}
+
+	/**
+	 * Removes every entry from the cache.
+	 */
+	public void clear() {
+		mCache.evictAll();
+	}
+
+	static InputStream openAsset(AssetManager assets, String path) {
+		int query = path.indexOf('?');
+		if (query != -1) {
+			path = path.substring(0, query);
+		}
+		try {
+			return assets.open(path, AssetManager.ACCESS_STREAMING);
+		} catch (FileNotFoundException e) {
+		} catch (IOException e) {
+			return null;
+		}
+		try {
+			return new GZIPInputStream(assets.open(path + GZIP_SUFFIX, AssetManager.ACCESS_STREAMING));
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static String getMimeType(String url) {
+		String extension = MimeTypeMap.getFileExtensionFromUrl(url);
+		if (extension != null && extension.length() > 0) {
+			String mimeType = MimeTypeMap.getSingleton().getMimeTypeFromExtension(extension.toLowerCase());
+			if (mimeType != null) {
+				return mimeType;
+			}
+		}
+		return DEFAULT_MIME_TYPE;
+	}
+
+	/**
+	 * Passes an asset to the WebView and keeps a copy of the bytes read.
+	 * The copy is cached once the end of the stream is reached, unless it grew too large.
+	 */
+	private class CachingInputStream extends FilterInputStream {
+
+		private final String mUrl;
+		private ByteArrayOutputStream mCopy = new ByteArrayOutputStream();
+
+		CachingInputStream(String url, InputStream in) {
+			super(in);
+			mUrl = url;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b == -1) {
+				onEndOfStream();
+			} else if (mCopy != null) {
+				mCopy.write(b);
+				checkSize();
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int count) throws IOException {
+			int read = super.read(buffer, offset, count);
+			if (read == -1) {
+				onEndOfStream();
+			} else if (mCopy != null) {
+				mCopy.write(buffer, offset, read);
+				checkSize();
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long count) throws IOException {
+			// Skipped bytes can't be cached
+			mCopy = null;
+			return super.skip(count);
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+
+		private void checkSize() {
+			if (mCopy.size() > mMaxEntrySize) {
+				mCopy = null;
+			}
+		}
+
+		private void onEndOfStream() {
+			if (mCopy != null) {
+				mCache.put(mUrl, mCopy.toByteArray());
+				mCopy = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) Jared Rummler (jrummy16@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jrummy.apps.dialogs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.graphics.Color;
+import android.os.Build;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.webkit.WebView;
+import android.webkit.WebViewClient;
+
+/**
+ * A process-wide pool of warm WebViews for the dialogs created with
+ * {@link EasyDialog.Builder#setWebViewUrl(String)}.
+ * <br><br>
+ * Creating the first WebView in a process is slow. Call {@link #prewarm(Context)} early, for example in
+ * <code>Activity.onCreate</code>, and a WebView is created the next time the UI thread is idle.
+ * Dialogs borrow it with {@link #obtain(Context)} and give it back with {@link #recycle(WebView)}
+ * when they are dismissed, so the WebView's renderer is reused by the next dialog. Pooled WebViews
+ * are paused until they are borrowed again.
+ * <br><br>
+ * Pooled WebViews are created with a {@link MutableContextWrapper} around the application context.
+ * The base context is switched to the dialog's context while borrowed, so no Activity is held by the pool.
+ * All methods must be called on the UI thread.
+ */
+public final class WebViewPool {
+
+	private static final int MAX_POOL_SIZE = 1;
+
+	private static final List<WebView> sPool = new ArrayList<WebView>(MAX_POOL_SIZE);
+	private static boolean sPrewarmQueued;
+
+	private WebViewPool() {
+	}
+
+	/**
+	 * Creates a WebView for the pool the next time the UI thread is idle.
+	 * Does nothing if the pool already has one.
+	 *
+	 * @param context Any context. Only the application context is kept.
+	 */
+	public static void prewarm(Context context) {
+		checkThread();
+		if (sPrewarmQueued || sPool.size() >= MAX_POOL_SIZE) {
+			return;
+		}
+		sPrewarmQueued = true;
+		final Context appContext = context.getApplicationContext();
+		Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+
+			@Override
+			public boolean queueIdle() {
+				sPrewarmQueued = false;
+				if (sPool.size() < MAX_POOL_SIZE) {
+					sPool.add(new WebView(new MutableContextWrapper(appContext)));
+				}
+				return false;
+			}
+		});
+	}
+
+	/**
+	 * Borrows a WebView from the pool, or creates one if the pool is empty.
+	 *
+	 * @param context The context of the dialog the WebView is shown in.
+	 * @return A WebView that isn't attached to a parent.
+	 */
+	public static WebView obtain(Context context) {
+		checkThread();
+		WebView webView;
+		if (sPool.isEmpty()) {
+			webView = new WebView(new MutableContextWrapper(context.getApplicationContext()));
+		} else {
+			webView = sPool.remove(sPool.size() - 1);
+			// In case the blank page had not finished loading when the WebView was paused
+			webView.clearHistory();
+		}
+		((MutableContextWrapper) webView.getContext()).setBaseContext(context);
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+			webView.onResume();
+		}
+		return webView;
+	}
+
+	/**
+	 * Resets a WebView from {@link #obtain(Context)} and puts it back in the pool.
+	 * The WebView is destroyed if the pool is full.
+	 *
+	 * @param webView The WebView to return.
+	 */
+	public static void recycle(WebView webView) {
+		checkThread();
+		ViewParent parent = webView.getParent();
+		if (parent instanceof ViewGroup) {
+			((ViewGroup) parent).removeView(webView);
+		}
+
+		if (sPool.size() >= MAX_POOL_SIZE || !(webView.getContext() instanceof MutableContextWrapper)) {
+			webView.destroy();
+			return;
+		}
+
+		webView.stopLoading();
+		webView.setWebViewClient(sResetClient);
+		webView.setWebChromeClient(null);
+		webView.getSettings().setJavaScriptEnabled(false);
+		webView.setBackgroundColor(Color.WHITE);
+		// The blank page loads asynchronously, the history is cleared once it has finished
+		webView.loadUrl("about:blank");
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+			// No timers or JavaScript while pooled
+			webView.onPause();
+		}
+		((MutableContextWrapper) webView.getContext()).setBaseContext(
+				webView.getContext().getApplicationContext());
+		sPool.add(webView);
+	}
+
+	/**
+	 * Destroys the pooled WebViews, for example when the app is low on memory.
+	 */
+	public static void clear() {
+		checkThread();
+		for (WebView webView : sPool) {
+			webView.destroy();
+		}
+		sPool.clear();
+	}
+
+	/**
+	 * Clears the history of a pooled WebView once the blank page is loaded,
+	 * so the next dialog can't go back to the previous dialog's page.
+	 */
+	private static final WebViewClient sResetClient = new WebViewClient() {
+
+		@Override
+		public void onPageFinished(WebView view, String url) {
+			view.clearHistory();
+		}
+	};
+
+	private static void checkThread() {
+		if (Looper.myLooper() != Looper.getMainLooper()) {
+			throw new IllegalStateException("WebViewPool must be used on the UI thread");
+		}
+	}
+}